@@ -1,98 +1,296 @@
 package ru.practicum.gateway.client;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.reactive.ClientHttpConnector;
 import org.springframework.lang.Nullable;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
+
+import javax.servlet.http.HttpServletResponse;
 
 public class BaseClient {
+    private static final int STREAM_BUFFER_SIZE = 8192;
+    /**
+     * Заголовки соединения и длины тела относятся к ответу сервера шлюзу, клиенту шлюза их выставит Tomcat.
+     */
+    private static final Set<String> SKIPPED_HEADERS = Set.of(HttpHeaders.CONNECTION, "Keep-Alive",
+            HttpHeaders.TRANSFER_ENCODING, "TE", "Trailer", HttpHeaders.UPGRADE,
+            HttpHeaders.PROXY_AUTHENTICATE, HttpHeaders.PROXY_AUTHORIZATION, HttpHeaders.CONTENT_LENGTH,
+            HttpHeaders.DATE).stream()
+            .map(name -> name.toLowerCase(Locale.ROOT))
+            .collect(Collectors.toUnmodifiableSet());
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+
     protected final RestTemplate rest;
+    @Nullable
+    private final WebClient web;
+    @Nullable
+    private final ResponseCache.Route cache;
+    @Nullable
+    private final SingleFlight singleFlight;
 
     public BaseClient(RestTemplate rest) {
+        this(rest, null, null, null);
+    }
+
+    /**
+     * Если передан WebClient, запросы к серверу выполняются без блокировки потока Tomcat,
+     * иначе синхронно через RestTemplate. Потоковые выгрузки всегда идут через RestTemplate.
+     */
+    public BaseClient(RestTemplate rest, @Nullable WebClient web) {
+        this(rest, web, null, null);
+    }
+
+    public BaseClient(RestTemplate rest, @Nullable WebClient web, @Nullable ResponseCache.Route cache,
+                      @Nullable SingleFlight singleFlight) {
         this.rest = rest;
+        this.web = web;
+        this.cache = cache;
+        this.singleFlight = singleFlight;
     }
 
-    protected ResponseEntity<Object> get(String path) {
+    /**
+     * WebClient строится из настроенного Boot билдера: кодеки, фильтры и наблюдение остаются общими для приложения.
+     */
+    @Nullable
+    protected static WebClient webClient(WebClient.Builder builder, String baseUrl,
+                                         @Nullable ClientHttpConnector connector) {
+        if (connector == null) {
+            return null;
+        }
+        return builder.clone()
+                .uriBuilderFactory(new DefaultUriBuilderFactory(baseUrl))
+                .clientConnector(connector)
+                .build();
+    }
+
+    protected CompletableFuture<ResponseEntity<Object>> get(String path) {
         return get(path, null, null);
     }
 
-    protected ResponseEntity<Object> get(String path, long userId) {
+    protected CompletableFuture<ResponseEntity<Object>> get(String path, long userId) {
         return get(path, userId, null);
     }
 
-    protected ResponseEntity<Object> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
+    protected CompletableFuture<ResponseEntity<Object>> get(String path, Long userId,
+                                                            @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, T body) {
+    /**
+     * Условный GET: If-None-Match клиента уходит на сервер, 304 сервера возвращается клиенту вместе с ETag.
+     */
+    protected CompletableFuture<ResponseEntity<Object>> conditionalGet(String path, Long userId,
+                                                                       @Nullable String ifNoneMatch) {
+        HttpHeaders headers = defaultHeaders(userId);
+        if (ifNoneMatch != null) {
+            headers.set(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return makeAndSendRequest(HttpMethod.GET, path, headers, null, null);
+    }
+
+    protected <T> CompletableFuture<ResponseEntity<Object>> post(String path, T body) {
         return post(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, long userId, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> post(String path, long userId, T body) {
         return post(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> post(String path, Long userId,
+                                                                 @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> put(String path, long userId, T body) {
         return put(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> put(String path, long userId,
+                                                                @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PUT, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, T body) {
         return patch(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, long userId) {
         return patch(path, userId, null, null);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, long userId, T body) {
         return patch(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, Long userId,
+                                                                  @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, body);
     }
 
-    protected ResponseEntity<Object> delete(String path) {
+    protected CompletableFuture<ResponseEntity<Object>> delete(String path) {
         return delete(path, null, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, long userId) {
+    protected CompletableFuture<ResponseEntity<Object>> delete(String path, long userId) {
         return delete(path, userId, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
+    protected CompletableFuture<ResponseEntity<Object>> delete(String path, Long userId,
+                                                               @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
-    private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
-        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
+    /**
+     * Копирует ответ сервера в ответ шлюза по мере чтения, не собирая тело в памяти.
+     * Каждый прочитанный фрагмент сразу отправляется клиенту, а не копится в буфере ответа.
+     */
+    protected void stream(String path, Long userId, Map<String, Object> parameters, MediaType accept,
+                          HttpServletResponse response) {
+        try {
+            rest.execute(path, HttpMethod.GET,
+                    request -> {
+                        request.getHeaders().addAll(defaultHeaders(userId));
+                        request.getHeaders().setAccept(List.of(accept));
+                    },
+                    upstream -> {
+                        response.setStatus(upstream.getRawStatusCode());
+                        MediaType contentType = upstream.getHeaders().getContentType();
+                        if (contentType != null) {
+                            response.setContentType(contentType.toString());
+                        }
+                        copy(upstream.getBody(), response.getOutputStream());
+                        return null;
+                    },
+                    parameters);
+        } catch (HttpStatusCodeException e) {
+            response.setStatus(e.getRawStatusCode());
+            try {
+                response.getOutputStream().write(e.getResponseBodyAsByteArray());
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+            out.flush();
+        }
+    }
+
+    private <T> CompletableFuture<ResponseEntity<Object>> makeAndSendRequest(HttpMethod method, String path,
+                                                                             Long userId,
+                                                                             @Nullable Map<String, Object> parameters,
+                                                                             @Nullable T body) {
+        return makeAndSendRequest(method, path, defaultHeaders(userId), parameters, body);
+    }
+
+    /**
+     * GET-ответы корня, для которого задан TTL, отдаются из кэша, изменяющие запросы сбрасывают кэш
+     * после ответа сервера, чтобы следующее чтение через шлюз уже видело изменение.
+     * Одинаковые одновременные GET мимо кэша объединяются в один запрос к серверу.
+     */
+    private <T> CompletableFuture<ResponseEntity<Object>> makeAndSendRequest(HttpMethod method, String path,
+                                                                             HttpHeaders headers,
+                                                                             @Nullable Map<String, Object> parameters,
+                                                                             @Nullable T body) {
+        if (cache == null) {
+            return send(method, path, headers, parameters, body);
+        }
+        if (method != HttpMethod.GET) {
+            return send(method, path, headers, parameters, body)
+                    .whenComplete((response, e) -> cache.invalidate());
+        }
+
+        if (!cache.isCached() && singleFlight == null) {
+            return send(method, path, headers, parameters, body);
+        }
+
+        String uri = (parameters != null
+                ? rest.getUriTemplateHandler().expand(path, parameters)
+                : rest.getUriTemplateHandler().expand(path)).toString();
+        ResponseCache.Key key = cache.key(method, uri, headers.getFirst(USER_HEADER));
+        if (cache.isCached()) {
+            ResponseEntity<Object> cached = cache.get(key);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(fromCache(cached, headers.getIfNoneMatch()));
+            }
+        }
+
+        Supplier<CompletableFuture<ResponseEntity<Object>>> read = () -> send(method, path, headers, parameters, body)
+                .thenApply(response -> {
+                    cache.put(key, response);
+                    return response;
+                });
+        if (singleFlight == null) {
+            return read.get();
+        }
+        return singleFlight.execute(new SingleFlight.Key(key, headers.getIfNoneMatch()), read);
+    }
+
+    /**
+     * Тело ответа сервера передается клиенту как есть, в виде байтов, без разбора в дерево объектов
+     * и повторной сериализации. Вместе с телом передаются сквозные заголовки, например ETag и X-Next-Cursor,
+     * заголовки из SKIPPED_HEADERS отбрасываются.
+     */
+    private <T> CompletableFuture<ResponseEntity<Object>> send(HttpMethod method, String path, HttpHeaders headers,
+                                                               @Nullable Map<String, Object> parameters,
+                                                               @Nullable T body) {
+        if (web == null) {
+            return CompletableFuture.completedFuture(exchange(method, path, headers, parameters, body));
+        }
+
+        WebClient.RequestBodySpec request = web.method(method)
+                .uri(path, parameters != null ? parameters : Map.of())
+                .headers(h -> h.addAll(headers));
+        WebClient.RequestHeadersSpec<?> spec = body != null ? request.bodyValue(body) : request;
+        return spec.exchangeToMono(response -> response.bodyToMono(byte[].class)
+                        .map(bytes -> relay(response.statusCode(), response.headers().asHttpHeaders(), bytes))
+                        .switchIfEmpty(Mono.fromSupplier(() ->
+                                relay(response.statusCode(), response.headers().asHttpHeaders(), null))))
+                .toFuture();
+    }
+
+    private <T> ResponseEntity<Object> exchange(HttpMethod method, String path, HttpHeaders headers,
+                                                @Nullable Map<String, Object> parameters, @Nullable T body) {
+        HttpEntity<T> requestEntity = new HttpEntity<>(body, headers);
 
-        ResponseEntity<Object> shareitServerResponse;
+        ResponseEntity<byte[]> shareitServerResponse;
         try {
             if (parameters != null) {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class, parameters);
+                shareitServerResponse = rest.exchange(path, method, requestEntity, byte[].class, parameters);
             } else {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class);
+                shareitServerResponse = rest.exchange(path, method, requestEntity, byte[].class);
             }
         } catch (HttpStatusCodeException e) {
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
+            return relay(e.getStatusCode(), e.getResponseHeaders(), e.getResponseBodyAsByteArray());
         }
-        return prepareGatewayResponse(shareitServerResponse);
+        return relay(shareitServerResponse.getStatusCode(), shareitServerResponse.getHeaders(),
+                shareitServerResponse.getBody());
     }
 
     private HttpHeaders defaultHeaders(Long userId) {
@@ -100,20 +298,35 @@ public class BaseClient {
         headers.setContentType(MediaType.APPLICATION_JSON);
         headers.setAccept(List.of(MediaType.APPLICATION_JSON));
         if (userId != null) {
-            headers.set("X-Sharer-User-Id", String.valueOf(userId));
+            headers.set(USER_HEADER, String.valueOf(userId));
         }
         return headers;
     }
 
-    private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
-        if (response.getStatusCode().is2xxSuccessful()) {
-            return response;
+    /**
+     * Ответ из кэша на условный GET: если ETag совпал с If-None-Match клиента, тело не отправляется.
+     */
+    private static ResponseEntity<Object> fromCache(ResponseEntity<Object> cached, List<String> ifNoneMatch) {
+        String eTag = cached.getHeaders().getETag();
+        if (eTag != null && (ifNoneMatch.contains(eTag) || ifNoneMatch.contains("*"))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
         }
+        return cached;
+    }
 
-        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode());
+    private static ResponseEntity<Object> relay(HttpStatus status, @Nullable HttpHeaders serverHeaders,
+                                                @Nullable byte[] body) {
+        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(status);
+        if (serverHeaders != null) {
+            serverHeaders.forEach((name, values) -> {
+                if (!SKIPPED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                    responseBuilder.header(name, values.toArray(String[]::new));
+                }
+            });
+        }
 
-        if (response.hasBody()) {
-            return responseBuilder.body(response.getBody());
+        if (body != null && body.length > 0) {
+            return responseBuilder.body(body);
         }
 
         return responseBuilder.build();
@@ -1,58 +1,108 @@
 package ru.practicum.gateway.client;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import ru.practicum.gateway.dto.BookingDecisionDto;
 import ru.practicum.gateway.dto.BookingDtoInput;
 import ru.practicum.gateway.dto.State;
 
+import javax.servlet.http.HttpServletResponse;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
 
     @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                         ClientHttpRequestFactory serverRequestFactory,
+                         WebClient.Builder webClientBuilder,
+                         @Qualifier("serverHttpConnector") ObjectProvider<ClientHttpConnector> serverHttpConnector,
+                         ResponseCache responseCache, SingleFlight singleFlight) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> serverRequestFactory)
+                        .build(),
+                webClient(webClientBuilder, serverUrl + API_PREFIX, serverHttpConnector.getIfAvailable()),
+                responseCache.route(ResponseCache.BOOKINGS, ResponseCache.ITEMS),
+                singleFlight
         );
     }
 
-    public ResponseEntity<Object> createBooking(Long userId, BookingDtoInput bookingDtoInput) {
+    public CompletableFuture<ResponseEntity<Object>> createBooking(Long userId, BookingDtoInput bookingDtoInput) {
         return post("", userId, bookingDtoInput);
     }
 
-    public ResponseEntity<Object> setApprovedByOwner(Long userId, Long bookingId, Boolean approved) {
+    public CompletableFuture<ResponseEntity<Object>> createBookings(Long userId,
+                                                                    List<BookingDtoInput> bookingDtoInputs) {
+        return post("/batch", userId, bookingDtoInputs);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> setApprovedByOwner(Long userId, Long bookingId, Boolean approved) {
         Map<String, Object> parameters = Map.of("approved", approved);
         return patch("/" + bookingId + "?approved={approved}", userId, parameters, null);
     }
 
-    public ResponseEntity<Object> getBookingById(Long userId, Long bookingId) {
-        return get("/" + bookingId, userId);
+    public CompletableFuture<ResponseEntity<Object>> setDecisionsByOwner(Long userId,
+                                                                         List<BookingDecisionDto> decisions) {
+        return patch("/owner/decisions", userId, decisions);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> getBookingById(Long userId, Long bookingId, String ifNoneMatch) {
+        return conditionalGet("/" + bookingId, userId, ifNoneMatch);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> getAllBookings(Long userId, List<State> states, int from, int size,
+                                                                    String cursor) {
+        return getPage("", userId, states, from, size, cursor);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> getAllBookingsForOwner(Long userId, List<State> states, int from,
+                                                                            int size, String cursor) {
+        return getPage("/owner", userId, states, from, size, cursor);
+    }
+
+    public void exportBookings(Long userId, List<State> states, HttpServletResponse response) {
+        stream("/export?state={state}", userId, Map.of("state", join(states)), MediaType.APPLICATION_NDJSON, response);
+    }
+
+    public void exportBookingsForOwner(Long userId, List<State> states, HttpServletResponse response) {
+        stream("/owner/export?state={state}", userId, Map.of("state", join(states)), MediaType.APPLICATION_NDJSON,
+                response);
     }
 
-    public ResponseEntity<Object> getAllBookings(Long userId, State state, int from, int size) {
-        Map<String, Object> parameters = Map.of(
-                "state", state.name(),
-                "from", from,
-                "size", size);
-        return get("?state={state}&from={from}&size={size}", userId, parameters);
+    private CompletableFuture<ResponseEntity<Object>> getPage(String path, Long userId, List<State> states, int from,
+                                                              int size, String cursor) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("state", join(states));
+        parameters.put("from", from);
+        parameters.put("size", size);
+        if (cursor == null) {
+            return get(path + "?state={state}&from={from}&size={size}", userId, parameters);
+        }
+        parameters.put("cursor", cursor);
+        return get(path + "?state={state}&from={from}&size={size}&cursor={cursor}", userId, parameters);
     }
 
-    public ResponseEntity<Object> getAllBookingsForOwner(Long userId, State state, int from, int size) {
-        Map<String, Object> parameters = Map.of(
-                "state", state.name(),
-                "from", from,
-                "size", size);
-        return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
+    private static String join(List<State> states) {
+        return states.stream()
+                .map(State::name)
+                .collect(Collectors.joining(","));
     }
 
 }
@@ -1,55 +1,107 @@
 package ru.practicum.gateway.client;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ClientHttpConnector;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import org.springframework.web.util.UriComponentsBuilder;
 import ru.practicum.gateway.dto.CommentDto;
 import ru.practicum.gateway.dto.ItemDto;
 
+import javax.servlet.http.HttpServletResponse;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 @Service
 public class ItemClient extends BaseClient {
 
     private static final String API_PREFIX = "/items";
 
     @Autowired
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                      ClientHttpRequestFactory serverRequestFactory,
+                      WebClient.Builder webClientBuilder,
+                      @Qualifier("serverHttpConnector") ObjectProvider<ClientHttpConnector> serverHttpConnector,
+                      ResponseCache responseCache, SingleFlight singleFlight) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> serverRequestFactory)
+                        .build(),
+                webClient(webClientBuilder, serverUrl + API_PREFIX, serverHttpConnector.getIfAvailable()),
+                responseCache.route(ResponseCache.ITEMS, ResponseCache.BOOKINGS, ResponseCache.REQUESTS),
+                singleFlight
         );
     }
 
-    public ResponseEntity<Object> createItem(Long userId, ItemDto itemDto) {
+    public CompletableFuture<ResponseEntity<Object>> createItem(Long userId, ItemDto itemDto) {
         return post("", userId, itemDto);
     }
 
-    public ResponseEntity<Object> commentItem(Long userId, Long itemId, CommentDto commentDto) {
+    public CompletableFuture<ResponseEntity<Object>> commentItem(Long userId, Long itemId, CommentDto commentDto) {
         return post("/" + itemId + "/comment", userId, commentDto);
     }
 
-    public ResponseEntity<Object> updateItem(Long userId, Long itemId, ItemDto itemDto) {
+    public CompletableFuture<ResponseEntity<Object>> updateItem(Long userId, Long itemId, ItemDto itemDto) {
         return patch("/" + itemId, userId, itemDto);
     }
 
-    public ResponseEntity<Object> getItemById(Long userId, Long itemId) {
-        return get("/" + itemId, userId);
+    public CompletableFuture<ResponseEntity<Object>> getItemById(Long userId, Long itemId, String ifNoneMatch) {
+        return conditionalGet("/" + itemId, userId, ifNoneMatch);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> getAvailability(Long itemId, LocalDateTime from,
+                                                                     LocalDateTime to) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("itemId", itemId);
+        UriComponentsBuilder path = UriComponentsBuilder.fromPath("/{itemId}/availability");
+        if (from != null) {
+            parameters.put("from", from);
+            path.queryParam("from", "{from}");
+        }
+        if (to != null) {
+            parameters.put("to", to);
+            path.queryParam("to", "{to}");
+        }
+        return get(path.build().toUriString(), null, parameters);
     }
 
-    public ResponseEntity<Object> deleteItem(Long itemId) {
+    public CompletableFuture<ResponseEntity<Object>> deleteItem(Long itemId) {
         return delete("/" + itemId);
     }
 
-    public ResponseEntity<Object> getAllItemsByUserId(Long userId) {
-        return get("", userId);
+    public CompletableFuture<ResponseEntity<Object>> getAllItemsByUserId(Long userId, String ifNoneMatch) {
+        return conditionalGet("", userId, ifNoneMatch);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> searchItemsByDescription(String text, Integer from, Integer size) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("text", text);
+        UriComponentsBuilder path = UriComponentsBuilder.fromPath("/search")
+                .queryParam("text", "{text}");
+        // без from и size сервер отдает все совпадения, поэтому отсутствующие параметры не передаются
+        if (from != null) {
+            parameters.put("from", from);
+            path.queryParam("from", "{from}");
+        }
+        if (size != null) {
+            parameters.put("size", size);
+            path.queryParam("size", "{size}");
+        }
+        return get(path.build().toUriString(), null, parameters);
     }
 
-    public ResponseEntity<Object> searchItemsByDescription(String text) {
-        return get("/search?text=" + text);
+    public void streamItemsByDescription(String text, HttpServletResponse response) {
+        stream("/search/stream?text={text}", null, Map.of("text", text), MediaType.APPLICATION_NDJSON, response);
     }
 }
@@ -0,0 +1,144 @@
+package ru.practicum.gateway.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Value;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import ru.practicum.gateway.config.ResponseCacheProperties;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Кэш успешных GET-ответов сервера, общий для всех клиентов шлюза.
+ * Ключ — метод, URI с параметрами, пользователь из X-Sharer-User-Id и поколение корня пути.
+ * Изменяющий запрос через шлюз увеличивает поколение своего корня и зависимых корней,
+ * после чего старые записи больше не находятся и вытесняются по TTL или по размеру.
+ * Поколения ведутся и для корней без TTL: по ним же {@link SingleFlight} не присоединяет чтение к запросу,
+ * отправленному до изменения.
+ */
+@Component
+public class ResponseCache {
+    public static final String ITEMS = "items";
+    public static final String BOOKINGS = "bookings";
+    public static final String REQUESTS = "requests";
+    public static final String USERS = "users";
+
+    private static final int ENTRY_OVERHEAD = 256;
+
+    private final Map<String, Duration> ttl;
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final Cache<Key, ResponseEntity<Object>> cache;
+
+    @Autowired
+    public ResponseCache(ResponseCacheProperties properties, MeterRegistry registry) {
+        this(properties, registry, Ticker.systemTicker());
+    }
+
+    ResponseCache(ResponseCacheProperties properties, MeterRegistry registry, Ticker ticker) {
+        this.ttl = Map.copyOf(properties.getTtl());
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxSize().toBytes())
+                .weigher((Key key, ResponseEntity<Object> response) -> weight(key, response))
+                .expireAfter(new RouteExpiry())
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "gateway-responses");
+    }
+
+    /**
+     * Корень пути клиента. Изменяющий запрос через него сбрасывает ответы самого корня и перечисленных.
+     */
+    public Route route(String name, String... invalidates) {
+        return new Route(name, List.of(invalidates));
+    }
+
+    private int weight(Key key, ResponseEntity<Object> response) {
+        byte[] body = (byte[]) response.getBody();
+        long weight = ENTRY_OVERHEAD + 2L * key.getUri().length() + (body == null ? 0 : body.length);
+        return (int) Math.min(weight, Integer.MAX_VALUE);
+    }
+
+    private AtomicLong generation(String route) {
+        return generations.computeIfAbsent(route, r -> new AtomicLong());
+    }
+
+    public class Route {
+        private final String name;
+        private final List<String> invalidates;
+
+        private Route(String name, List<String> invalidates) {
+            this.name = name;
+            this.invalidates = invalidates;
+        }
+
+        public boolean isCached() {
+            return ttl.containsKey(name);
+        }
+
+        /**
+         * Поколение фиксируется до запроса к серверу, поэтому ответ, прочитанный до завершения
+         * параллельного изменения, сохранится уже под устаревшим ключом.
+         */
+        public Key key(HttpMethod method, String uri, @Nullable String userId) {
+            return new Key(name, generation(name).get(), method, uri, userId);
+        }
+
+        @Nullable
+        public ResponseEntity<Object> get(Key key) {
+            return cache.getIfPresent(key);
+        }
+
+        public void put(Key key, ResponseEntity<Object> response) {
+            if (isCached() && response.getStatusCode() == HttpStatus.OK && response.getBody() instanceof byte[]) {
+                cache.put(key, response);
+            }
+        }
+
+        public void invalidate() {
+            generation(name).incrementAndGet();
+            invalidates.forEach(route -> generation(route).incrementAndGet());
+        }
+    }
+
+    @Value
+    public static class Key {
+        String route;
+        long generation;
+        HttpMethod method;
+        String uri;
+        String userId;
+    }
+
+    private class RouteExpiry implements Expiry<Key, ResponseEntity<Object>> {
+        @Override
+        public long expireAfterCreate(Key key, ResponseEntity<Object> response, long currentTime) {
+            return ttl.get(key.getRoute()).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(Key key, ResponseEntity<Object> response, long currentTime,
+                                      long currentDuration) {
+            return ttl.get(key.getRoute()).toNanos();
+        }
+
+        @Override
+        public long expireAfterRead(Key key, ResponseEntity<Object> response, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
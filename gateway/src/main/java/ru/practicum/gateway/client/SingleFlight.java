@@ -0,0 +1,81 @@
+package ru.practicum.gateway.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Объединение одинаковых одновременных чтений: пока запрос к серверу в полете, такие же запросы
+ * не уходят на сервер, а получают его ответ. Работает и без кэша ответов, в том числе на его промахах.
+ * Доля присоединившихся запросов публикуется как shareit.gateway.coalescing.ratio.
+ */
+@Component
+public class SingleFlight {
+    private final Map<Key, CompletableFuture<ResponseEntity<Object>>> inFlight = new ConcurrentHashMap<>();
+    private final Counter leaders;
+    private final Counter joined;
+
+    public SingleFlight(MeterRegistry registry) {
+        this.leaders = Counter.builder("shareit.gateway.reads")
+                .tag("coalesced", "false")
+                .register(registry);
+        this.joined = Counter.builder("shareit.gateway.reads")
+                .tag("coalesced", "true")
+                .register(registry);
+        Gauge.builder("shareit.gateway.coalescing.ratio", this, SingleFlight::ratio)
+                .register(registry);
+    }
+
+    /**
+     * Выполняет чтение или присоединяется к уже идущему с тем же ключом. Запись удаляется до того,
+     * как ответ отдан ожидающим, поэтому запрос, пришедший после ответа, снова идет на сервер.
+     */
+    public CompletableFuture<ResponseEntity<Object>> execute(Key key,
+                                                             Supplier<CompletableFuture<ResponseEntity<Object>>> call) {
+        CompletableFuture<ResponseEntity<Object>> flight = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<Object>> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            joined.increment();
+            return existing;
+        }
+        leaders.increment();
+        try {
+            call.get().whenComplete((response, e) -> {
+                inFlight.remove(key, flight);
+                if (e != null) {
+                    flight.completeExceptionally(e);
+                } else {
+                    flight.complete(response);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+        return flight;
+    }
+
+    private double ratio() {
+        double total = leaders.count() + joined.count();
+        return total == 0 ? 0 : joined.count() / total;
+    }
+
+    /**
+     * Ключ чтения вместе с If-None-Match: условный и обычный GET получают разные ответы.
+     */
+    @Value
+    public static class Key {
+        ResponseCache.Key read;
+        List<String> ifNoneMatch;
+    }
+}
@@ -0,0 +1,25 @@
+package ru.practicum.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Настройки кэша GET-ответов сервера в шлюзе.
+ */
+@Data
+@ConfigurationProperties(prefix = "shareit-server.cache")
+public class ResponseCacheProperties {
+    /**
+     * Бюджет памяти под закэшированные ответы, при превышении вытесняются редко запрашиваемые.
+     */
+    private DataSize maxSize = DataSize.ofMegabytes(64);
+    /**
+     * TTL ответов по корню пути: items, bookings, requests, users. Ответы корня без TTL не кэшируются.
+     */
+    private Map<String, Duration> ttl = new HashMap<>();
+}
@@ -0,0 +1,54 @@
+package ru.practicum.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки общего пула соединений шлюза к серверу shareit.
+ */
+@Data
+@ConfigurationProperties(prefix = "shareit-server.http")
+public class ServerHttpProperties {
+    /**
+     * Способ вызова сервера из контроллеров шлюза.
+     */
+    private Mode mode = Mode.BLOCKING;
+    /**
+     * Всего соединений в пуле.
+     */
+    private int maxConnections = 200;
+    /**
+     * Соединений на один хост, все клиенты ходят на один сервер, поэтому по умолчанию равно общему лимиту.
+     */
+    private int maxConnectionsPerRoute = 200;
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    /**
+     * Таймаут ожидания данных от сервера между пакетами, а не на весь ответ, выгрузки не обрываются.
+     */
+    private Duration readTimeout = Duration.ofSeconds(30);
+    /**
+     * Сколько ждать свободного соединения из пула.
+     */
+    private Duration poolTimeout = Duration.ofSeconds(2);
+    /**
+     * Простаивающие дольше соединения закрываются фоновой очисткой.
+     */
+    private Duration idleTimeout = Duration.ofSeconds(30);
+    /**
+     * Соединение, простоявшее дольше, проверяется перед выдачей из пула.
+     */
+    private Duration validateAfterInactivity = Duration.ofSeconds(2);
+
+    public enum Mode {
+        /**
+         * RestTemplate, поток Tomcat ждет ответа сервера.
+         */
+        BLOCKING,
+        /**
+         * WebClient на reactor-netty, поток Tomcat освобождается до прихода ответа.
+         */
+        NON_BLOCKING
+    }
+}
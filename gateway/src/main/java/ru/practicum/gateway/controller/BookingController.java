@@ -3,17 +3,25 @@ package ru.practicum.gateway.controller;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.gateway.dto.BookingDecisionDto;
 import ru.practicum.gateway.dto.BookingDtoInput;
 import ru.practicum.gateway.client.BookingClient;
 import ru.practicum.gateway.dto.State;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import ru.practicum.gateway.exception.UnsupportedStateException;
 
 @Validated
@@ -24,44 +32,84 @@ import ru.practicum.gateway.exception.UnsupportedStateException;
 public class BookingController {
     final BookingClient client;
     private static final String HEADER = "X-Sharer-User-Id";
+    private static final int MAX_BATCH_SIZE = 100;
 
     @PostMapping
-    public ResponseEntity<Object> addReservation(@RequestHeader(HEADER) @Min(1) Long userId,
+    public CompletableFuture<ResponseEntity<Object>> addReservation(@RequestHeader(HEADER) @Min(1) Long userId,
                                           @Valid @RequestBody BookingDtoInput bookingDtoInput) {
         BookingDtoInput.validate(bookingDtoInput);
         return client.createBooking(userId, bookingDtoInput);
     }
 
+    @PostMapping("/batch")
+    public CompletableFuture<ResponseEntity<Object>> addReservations(@RequestHeader(HEADER) @Min(1) Long userId,
+                                                  @RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE)
+                                                  List<@Valid BookingDtoInput> bookingDtoInputs) {
+        bookingDtoInputs.forEach(BookingDtoInput::validate);
+        return client.createBookings(userId, bookingDtoInputs);
+    }
+
     @PatchMapping("/{bookingId}")
-    public ResponseEntity<Object> setApprovedByOwner(@PathVariable @Min(1) Long bookingId,
+    public CompletableFuture<ResponseEntity<Object>> setApprovedByOwner(@PathVariable @Min(1) Long bookingId,
                                               @RequestParam boolean approved,
                                               @RequestHeader(HEADER) @Min(1) Long userId) {
         return client.setApprovedByOwner(userId, bookingId, approved);
     }
 
+    @PatchMapping("/owner/decisions")
+    public CompletableFuture<ResponseEntity<Object>> setDecisionsByOwner(@RequestHeader(HEADER) @Min(1) Long userId,
+                                                      @RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE)
+                                                      List<@Valid BookingDecisionDto> decisions) {
+        return client.setDecisionsByOwner(userId, decisions);
+    }
+
     @GetMapping("/{bookingId}")
-    public ResponseEntity<Object> getBookingById(@PathVariable @Min(1) Long bookingId,
-                                          @RequestHeader(HEADER) @Min(1) Long userId) {
-        return client.getBookingById(userId, bookingId);
+    public CompletableFuture<ResponseEntity<Object>> getBookingById(@PathVariable @Min(1) Long bookingId,
+                                          @RequestHeader(HEADER) @Min(1) Long userId,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                          String ifNoneMatch) {
+        return client.getBookingById(userId, bookingId, ifNoneMatch);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getAllReservationsByUserId(@RequestHeader(HEADER) @Min(1) Long userId,
-                                                      @RequestParam(value = "state", defaultValue = "ALL") String stateString,
-                                                      @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                                      @RequestParam(defaultValue = "10") @Positive int size) {
-        State state = State.from(stateString)
+    public CompletableFuture<ResponseEntity<Object>> getAllReservationsByUserId(
+            @RequestHeader(HEADER) @Min(1) Long userId,
+            @RequestParam(value = "state", defaultValue = "ALL") String stateString,
+            @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+            @RequestParam(defaultValue = "10") @Positive int size,
+            @RequestParam(required = false) String cursor) {
+        List<State> states = State.fromAll(stateString)
                 .orElseThrow(() -> new UnsupportedStateException("Unknown state: " + stateString));
-        return client.getAllBookings(userId, state, from, size);
+        return client.getAllBookings(userId, states, from, size, cursor);
     }
 
     @GetMapping("/owner")
-    public ResponseEntity<Object> getAllReservationsByOwnerId(@RequestHeader(HEADER) @Min(1) Long userId,
-                                                       @RequestParam(value = "state", defaultValue = "ALL") String stateString,
-                                                       @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                                       @RequestParam(defaultValue = "10") @Positive int size) {
-        State state = State.from(stateString)
+    public CompletableFuture<ResponseEntity<Object>> getAllReservationsByOwnerId(
+            @RequestHeader(HEADER) @Min(1) Long userId,
+            @RequestParam(value = "state", defaultValue = "ALL") String stateString,
+            @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+            @RequestParam(defaultValue = "10") @Positive int size,
+            @RequestParam(required = false) String cursor) {
+        List<State> states = State.fromAll(stateString)
+                .orElseThrow(() -> new UnsupportedStateException("Unknown state: " + stateString));
+        return client.getAllBookingsForOwner(userId, states, from, size, cursor);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportReservationsByUserId(@RequestHeader(HEADER) @Min(1) Long userId,
+                                           @RequestParam(value = "state", defaultValue = "ALL") String stateString,
+                                           HttpServletResponse response) {
+        List<State> states = State.fromAll(stateString)
+                .orElseThrow(() -> new UnsupportedStateException("Unknown state: " + stateString));
+        client.exportBookings(userId, states, response);
+    }
+
+    @GetMapping(value = "/owner/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportReservationsByOwnerId(@RequestHeader(HEADER) @Min(1) Long userId,
+                                            @RequestParam(value = "state", defaultValue = "ALL") String stateString,
+                                            HttpServletResponse response) {
+        List<State> states = State.fromAll(stateString)
                 .orElseThrow(() -> new UnsupportedStateException("Unknown state: " + stateString));
-        return client.getAllBookingsForOwner(userId, state,  from, size);
+        client.exportBookingsForOwner(userId, states, response);
     }
 }
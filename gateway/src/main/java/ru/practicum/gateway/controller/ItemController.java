@@ -3,6 +3,9 @@ package ru.practicum.gateway.controller;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -11,10 +14,14 @@ import ru.practicum.gateway.dto.ItemDto;
 import ru.practicum.gateway.dto.CommentDto;
 import ru.practicum.gateway.dto.Validated.*;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/items")
@@ -26,39 +33,59 @@ public class ItemController {
     final ItemClient client;
 
     @PostMapping()
-    public ResponseEntity<Object> createItem(@RequestHeader(HEADER) @Min(1) Long userId,
+    public CompletableFuture<ResponseEntity<Object>> createItem(@RequestHeader(HEADER) @Min(1) Long userId,
                                       @Validated(Create.class) @RequestBody ItemDto itemDto) {
         return client.createItem(userId, itemDto);
     }
 
     @GetMapping("/{itemId}")
-    public ResponseEntity<Object> getItem(@PathVariable Long itemId, @RequestHeader(HEADER) @Min(1) Long userId) {
-        return client.getItemById(userId, itemId);
+    public CompletableFuture<ResponseEntity<Object>> getItem(
+            @PathVariable Long itemId, @RequestHeader(HEADER) @Min(1) Long userId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return client.getItemById(userId, itemId, ifNoneMatch);
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public CompletableFuture<ResponseEntity<Object>> getAvailability(
+            @PathVariable @Min(1) Long itemId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return client.getAvailability(itemId, from, to);
     }
 
     @PatchMapping("/{itemId}")
-    public ResponseEntity<Object> updateItem(@RequestHeader(HEADER) @Min(1) Long userId, @PathVariable @Min(1) Long itemId,
-                                      @Validated(Update.class) @RequestBody ItemDto itemDto) {
+    public CompletableFuture<ResponseEntity<Object>> updateItem(
+            @RequestHeader(HEADER) @Min(1) Long userId, @PathVariable @Min(1) Long itemId,
+            @Validated(Update.class) @RequestBody ItemDto itemDto) {
         return client.updateItem(userId, itemId, itemDto);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<Object> searchItems(@RequestParam("text") String text) {
-        return client.searchItemsByDescription(text);
+    public CompletableFuture<ResponseEntity<Object>> searchItems(@RequestParam("text") String text,
+                                              @RequestParam(required = false) @PositiveOrZero Integer from,
+                                              @RequestParam(required = false) @Positive Integer size) {
+        return client.searchItemsByDescription(text, from, size);
+    }
+
+    @GetMapping(value = "/search/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamItems(@RequestParam("text") String text, HttpServletResponse response) {
+        client.streamItemsByDescription(text, response);
     }
 
     @DeleteMapping("/{itemId}")
-    public void removeItem(@PathVariable @Min(1) Long itemId) {
-        client.deleteItem(itemId);
+    public CompletableFuture<Void> removeItem(@PathVariable @Min(1) Long itemId) {
+        return client.deleteItem(itemId).thenAccept(response -> { });
     }
 
     @GetMapping()
-    public ResponseEntity<Object> findAll(@RequestHeader(HEADER) @Min(1) Long userId) {
-        return client.getAllItemsByUserId(userId);
+    public CompletableFuture<ResponseEntity<Object>> findAll(@RequestHeader(HEADER) @Min(1) Long userId,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                          String ifNoneMatch) {
+        return client.getAllItemsByUserId(userId, ifNoneMatch);
     }
 
     @PostMapping("/{itemId}/comment")
-    public ResponseEntity<Object> addCommentByItemId(@RequestHeader(HEADER) @NotNull Long userId,
+    public CompletableFuture<ResponseEntity<Object>> addCommentByItemId(@RequestHeader(HEADER) @NotNull Long userId,
                                          @PathVariable("itemId") @Positive Long itemId,
                                          @Valid @RequestBody CommentDto commentDto) {
         return client.commentItem(userId, itemId, commentDto);
@@ -13,6 +13,7 @@ import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping(path = "/requests")
@@ -24,25 +25,27 @@ public class ItemRequestController {
     final RequestClient client;
 
     @PostMapping
-    public ResponseEntity<Object> addRequest(@Valid @RequestBody ItemRequestDtoInput dto,
+    public CompletableFuture<ResponseEntity<Object>> addRequest(@Valid @RequestBody ItemRequestDtoInput dto,
                                       @RequestHeader(HEADER) @NotNull Long userId) {
         return client.createRequest(userId, dto);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getAllRequestsByOwner(@RequestHeader(HEADER) @NotNull Long userId) {
+    public CompletableFuture<ResponseEntity<Object>> getAllRequestsByOwner(
+            @RequestHeader(HEADER) @NotNull Long userId) {
         return client.getUserRequests(userId);
     }
 
     @GetMapping("/all")
-    public ResponseEntity<Object> getAllRequestsByOtherUsers(@RequestHeader(HEADER) @NotNull Long userId,
-                                                      @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                                      @RequestParam(defaultValue = "10") @Positive int size) {
+    public CompletableFuture<ResponseEntity<Object>> getAllRequestsByOtherUsers(
+            @RequestHeader(HEADER) @NotNull Long userId,
+            @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+            @RequestParam(defaultValue = "10") @Positive int size) {
         return client.getAllRequests(userId, from, size);
     }
 
     @GetMapping("/{requestId}")
-    public ResponseEntity<Object> getRequestById(@RequestHeader(HEADER) @NotNull Long userId,
+    public CompletableFuture<ResponseEntity<Object>> getRequestById(@RequestHeader(HEADER) @NotNull Long userId,
                                           @PathVariable Long requestId) {
         return client.getRequestById(userId, requestId);
     }
@@ -10,6 +10,8 @@ import ru.practicum.gateway.dto.UserDto;
 import ru.practicum.gateway.client.UserClient;
 import ru.practicum.gateway.dto.Validated.*;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping(path = "/users")
 @RequiredArgsConstructor
@@ -18,29 +20,29 @@ public class UserController {
     final UserClient userClient;
 
     @GetMapping("{id}")
-    public ResponseEntity<Object> getUserById(@PathVariable Long id) {
+    public CompletableFuture<ResponseEntity<Object>> getUserById(@PathVariable Long id) {
         return userClient.getUserById(id);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getAllUsers() {
+    public CompletableFuture<ResponseEntity<Object>> getAllUsers() {
         return userClient.getAllUsers();
     }
 
     @PostMapping
-    public ResponseEntity<Object> addUser(@RequestBody @Validated(Create.class) UserDto userDto) {
+    public CompletableFuture<ResponseEntity<Object>> addUser(@RequestBody @Validated(Create.class) UserDto userDto) {
         return userClient.createUser(userDto);
     }
 
     @PatchMapping("/{userId}")
-    public ResponseEntity<Object> updateUser(@PathVariable Long userId,
+    public CompletableFuture<ResponseEntity<Object>> updateUser(@PathVariable Long userId,
                               @RequestBody @Validated(Update.class) UserDto userDto) {
         return userClient.updateUser(userId, userDto);
     }
 
     @DeleteMapping("{id}")
-    public void deleteUser(@PathVariable Long id) {
-        userClient.deleteUser(id);
+    public CompletableFuture<Void> deleteUser(@PathVariable Long id) {
+        return userClient.deleteUser(id).thenAccept(response -> { });
     }
 }
 
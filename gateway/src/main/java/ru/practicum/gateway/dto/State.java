@@ -1,5 +1,7 @@
 package ru.practicum.gateway.dto;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 public enum State {
@@ -13,4 +15,16 @@ public enum State {
         }
         return Optional.empty();
     }
+
+    public static Optional<List<State>> fromAll(String stringStates) {
+        List<State> states = new ArrayList<>();
+        for (String stringState : stringStates.split(",")) {
+            Optional<State> state = from(stringState.trim());
+            if (state.isEmpty()) {
+                return Optional.empty();
+            }
+            states.add(state.get());
+        }
+        return Optional.of(states);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,140 @@
+package ru.practicum.gateway.client;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.mock.http.client.reactive.MockClientHttpRequest;
+import org.springframework.mock.http.client.reactive.MockClientHttpResponse;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class BaseClientTest {
+    private static final String SERVER_URL = "http://localhost:9090/bookings";
+
+    private MockRestServiceServer server;
+    private BaseClient client;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate rest = new RestTemplate();
+        rest.setUriTemplateHandler(new DefaultUriBuilderFactory(SERVER_URL));
+        server = MockRestServiceServer.bindTo(rest).build();
+        client = new BaseClient(rest);
+    }
+
+    @Test
+    @DisplayName("Курсор следующей страницы и ETag доходят до клиента шлюза, заголовки соединения — нет")
+    void shouldRelayEndToEndHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Next-Cursor", "abc");
+        headers.setETag("\"v1\"");
+        headers.set(HttpHeaders.CONNECTION, "keep-alive");
+        headers.set(HttpHeaders.TRANSFER_ENCODING, "chunked");
+        server.expect(requestTo(SERVER_URL + "?state=ALL"))
+                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON).headers(headers));
+
+        ResponseEntity<Object> response = client.get("?state=ALL", 1L, null).join();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("abc", response.getHeaders().getFirst("X-Next-Cursor"));
+        assertEquals("\"v1\"", response.getHeaders().getETag());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        assertFalse(response.getHeaders().containsKey(HttpHeaders.CONNECTION));
+        assertFalse(response.getHeaders().containsKey(HttpHeaders.TRANSFER_ENCODING));
+        assertArrayEquals("[]".getBytes(), (byte[]) response.getBody());
+        server.verify();
+    }
+
+    @Test
+    @DisplayName("Ошибка сервера передается клиенту шлюза с телом и типом содержимого")
+    void shouldRelayErrorResponse() {
+        server.expect(requestTo(SERVER_URL + "/1"))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body("{\"error\":\"not found\"}"));
+
+        ResponseEntity<Object> response = client.get("/1", 1L).join();
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        assertArrayEquals("{\"error\":\"not found\"}".getBytes(), (byte[]) response.getBody());
+    }
+
+    @Test
+    @DisplayName("WebClient передает серверу запрос и возвращает статус, сквозные заголовки и тело ответа")
+    void shouldRelayResponseThroughWebClient() {
+        MockClientHttpResponse upstream = new MockClientHttpResponse(HttpStatus.CREATED);
+        upstream.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        upstream.getHeaders().setETag("\"v1\"");
+        upstream.getHeaders().set("X-Next-Cursor", "abc");
+        upstream.getHeaders().set(HttpHeaders.CONNECTION, "keep-alive");
+        upstream.setBody("{\"id\":1}");
+        List<MockClientHttpRequest> requests = new ArrayList<>();
+
+        ResponseEntity<Object> response = webClient(requests, upstream)
+                .post("/{id}", 1L, Map.of("id", 5), Map.of("name", "a"))
+                .join();
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals("abc", response.getHeaders().getFirst("X-Next-Cursor"));
+        assertEquals("\"v1\"", response.getHeaders().getETag());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        assertFalse(response.getHeaders().containsKey(HttpHeaders.CONNECTION));
+        assertArrayEquals("{\"id\":1}".getBytes(), (byte[]) response.getBody());
+        MockClientHttpRequest request = requests.get(0);
+        assertEquals(HttpMethod.POST, request.getMethod());
+        assertEquals(SERVER_URL + "/5", request.getURI().toString());
+        assertEquals("1", request.getHeaders().getFirst("X-Sharer-User-Id"));
+        assertEquals("{\"name\":\"a\"}", request.getBodyAsString().block());
+    }
+
+    @Test
+    @DisplayName("WebClient передает клиенту шлюза ошибки 4xx и 5xx вместо исключения")
+    void shouldRelayErrorsThroughWebClient() {
+        MockClientHttpResponse notFound = new MockClientHttpResponse(HttpStatus.NOT_FOUND);
+        notFound.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        notFound.setBody("{\"error\":\"not found\"}");
+
+        ResponseEntity<Object> response = webClient(new ArrayList<>(), notFound).get("/1", 1L).join();
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        assertArrayEquals("{\"error\":\"not found\"}".getBytes(), (byte[]) response.getBody());
+
+        response = webClient(new ArrayList<>(), new MockClientHttpResponse(HttpStatus.SERVICE_UNAVAILABLE))
+                .get("/1", 1L).join();
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertNull(response.getBody());
+    }
+
+    /**
+     * Клиент с WebClient поверх коннектора-заглушки: запросы сохраняются в requests, на каждый отдается upstream.
+     */
+    private BaseClient webClient(List<MockClientHttpRequest> requests, MockClientHttpResponse upstream) {
+        ClientHttpConnector connector = (method, uri, requestCallback) -> {
+            MockClientHttpRequest request = new MockClientHttpRequest(method, uri);
+            requests.add(request);
+            return requestCallback.apply(request).then(Mono.just(upstream));
+        };
+        return new BaseClient(new RestTemplate(), BaseClient.webClient(WebClient.builder(), SERVER_URL, connector));
+    }
+}
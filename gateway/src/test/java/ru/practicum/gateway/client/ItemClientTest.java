@@ -0,0 +1,81 @@
+package ru.practicum.gateway.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import ru.practicum.gateway.config.ResponseCacheProperties;
+
+import java.time.LocalDateTime;
+
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class ItemClientTest {
+    private static final String SERVER_URL = "http://localhost:9090";
+
+    private MockRestServiceServer server;
+    private ItemClient client;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        client = new ItemClient(SERVER_URL, new RestTemplateBuilder(), new SimpleClientHttpRequestFactory(),
+                WebClient.builder(), mock(ObjectProvider.class),
+                new ResponseCache(new ResponseCacheProperties(), registry), new SingleFlight(registry));
+        server = MockRestServiceServer.bindTo(client.rest).build();
+    }
+
+    @Test
+    @DisplayName("Поиск без from и size не передает их серверу")
+    void shouldSearchWithoutPage() {
+        server.expect(requestTo(SERVER_URL + "/items/search?text=%D0%B4%D1%80%D0%B5%D0%BB%D1%8C"))
+                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+
+        client.searchItemsByDescription("дрель", null, null).join();
+
+        server.verify();
+    }
+
+    @Test
+    @DisplayName("Поиск передает серверу только указанные параметры страницы")
+    void shouldSearchWithGivenPageParameters() {
+        server.expect(requestTo(SERVER_URL + "/items/search?text=a%26b&size=5"))
+                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+        server.expect(requestTo(SERVER_URL + "/items/search?text=a%26b&from=20&size=5"))
+                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+
+        client.searchItemsByDescription("a&b", null, 5).join();
+        client.searchItemsByDescription("a&b", 20, 5).join();
+
+        server.verify();
+    }
+
+    @Test
+    @DisplayName("Календарь передает серверу только указанные границы окна")
+    void shouldRequestAvailabilityWithGivenBounds() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 10, 0);
+        server.expect(requestTo(SERVER_URL + "/items/1/availability"))
+                .andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+        server.expect(requestTo(SERVER_URL + "/items/1/availability?to=2030-01-01T10%3A00"))
+                .andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+        server.expect(requestTo(SERVER_URL + "/items/1/availability?from=2030-01-01T10%3A00&to=2030-01-02T10%3A00"))
+                .andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+
+        client.getAvailability(1L, null, null).join();
+        client.getAvailability(1L, null, from).join();
+        client.getAvailability(1L, from, from.plusDays(1)).join();
+
+        server.verify();
+    }
+}
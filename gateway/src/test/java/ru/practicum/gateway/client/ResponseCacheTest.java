@@ -0,0 +1,138 @@
+package ru.practicum.gateway.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import ru.practicum.gateway.config.ResponseCacheProperties;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.ExpectedCount.once;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class ResponseCacheTest {
+    private static final String SERVER_URL = "http://localhost:9090/items";
+    private static final Duration TTL = Duration.ofSeconds(5);
+
+    private final AtomicLong nanos = new AtomicLong();
+    private ResponseCache responseCache;
+    private ResponseCache.Route items;
+    private ResponseCache.Route bookings;
+
+    @BeforeEach
+    void setUp() {
+        ResponseCacheProperties properties = new ResponseCacheProperties();
+        properties.setTtl(Map.of(ResponseCache.ITEMS, TTL, ResponseCache.BOOKINGS, TTL));
+        responseCache = new ResponseCache(properties, new SimpleMeterRegistry(), nanos::get);
+        items = responseCache.route(ResponseCache.ITEMS);
+        bookings = responseCache.route(ResponseCache.BOOKINGS, ResponseCache.ITEMS);
+    }
+
+    @Test
+    @DisplayName("Запись через корень сбрасывает его ответы и ответы зависимых корней")
+    void shouldInvalidateOnWrite() {
+        ResponseCache.Key itemKey = items.key(HttpMethod.GET, "/items/1", "1");
+        ResponseCache.Key bookingKey = bookings.key(HttpMethod.GET, "/bookings/1", "1");
+        items.put(itemKey, ok("item"));
+        bookings.put(bookingKey, ok("booking"));
+
+        bookings.invalidate();
+
+        assertNull(items.get(items.key(HttpMethod.GET, "/items/1", "1")));
+        assertNull(bookings.get(bookings.key(HttpMethod.GET, "/bookings/1", "1")));
+        assertNotEquals(itemKey, items.key(HttpMethod.GET, "/items/1", "1"));
+    }
+
+    @Test
+    @DisplayName("Запись через корень не сбрасывает корни, которые от него не зависят")
+    void shouldKeepIndependentRoutes() {
+        items.put(items.key(HttpMethod.GET, "/items/1", "1"), ok("item"));
+        bookings.put(bookings.key(HttpMethod.GET, "/bookings/1", "1"), ok("booking"));
+
+        items.invalidate();
+
+        assertNotNull(bookings.get(bookings.key(HttpMethod.GET, "/bookings/1", "1")));
+    }
+
+    @Test
+    @DisplayName("Ответ живет не дольше TTL своего корня")
+    void shouldExpireAfterTtl() {
+        ResponseCache.Key key = items.key(HttpMethod.GET, "/items/1", "1");
+        items.put(key, ok("item"));
+
+        nanos.addAndGet(TTL.minusMillis(1).toNanos());
+        assertNotNull(items.get(key));
+
+        nanos.addAndGet(Duration.ofMillis(1).toNanos());
+        assertNull(items.get(key));
+    }
+
+    @Test
+    @DisplayName("Ответ одного пользователя не отдается другому")
+    void shouldSeparateUsers() {
+        items.put(items.key(HttpMethod.GET, "/items/1", "1"), ok("owner view"));
+
+        assertNull(items.get(items.key(HttpMethod.GET, "/items/1", "2")));
+        assertNull(items.get(items.key(HttpMethod.GET, "/items/1", null)));
+        assertArrayEquals("owner view".getBytes(), (byte[]) items.get(items.key(HttpMethod.GET, "/items/1", "1"))
+                .getBody());
+    }
+
+    @Test
+    @DisplayName("Кэшируются только успешные ответы корней с TTL")
+    void shouldCacheOnlyOkResponsesOfCachedRoutes() {
+        ResponseCache.Route users = responseCache.route(ResponseCache.USERS);
+        ResponseCache.Key userKey = users.key(HttpMethod.GET, "/users/1", null);
+        ResponseCache.Key missingKey = items.key(HttpMethod.GET, "/items/404", "1");
+
+        users.put(userKey, ok("user"));
+        items.put(missingKey, ResponseEntity.status(HttpStatus.NOT_FOUND).body((Object) "{}".getBytes()));
+
+        assertNull(users.get(userKey));
+        assertNull(items.get(missingKey));
+    }
+
+    @Test
+    @DisplayName("Условный GET с совпавшим ETag получает 304 из кэша без запроса к серверу")
+    void shouldAnswerNotModifiedFromCachedETag() {
+        RestTemplate rest = new RestTemplate();
+        rest.setUriTemplateHandler(new DefaultUriBuilderFactory(SERVER_URL));
+        MockRestServiceServer server = MockRestServiceServer.bindTo(rest).build();
+        BaseClient client = new BaseClient(rest, null, items, null);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag("\"v1\"");
+        server.expect(once(), requestTo(SERVER_URL + "/1"))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withSuccess("{\"id\":1}", MediaType.APPLICATION_JSON).headers(headers));
+
+        ResponseEntity<Object> first = client.conditionalGet("/1", 1L, null).join();
+        ResponseEntity<Object> notModified = client.conditionalGet("/1", 1L, "\"v1\"").join();
+        ResponseEntity<Object> changed = client.conditionalGet("/1", 1L, "\"v0\"").join();
+
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+        assertEquals("\"v1\"", notModified.getHeaders().getETag());
+        assertNull(notModified.getBody());
+        assertEquals(HttpStatus.OK, changed.getStatusCode());
+        assertArrayEquals("{\"id\":1}".getBytes(), (byte[]) changed.getBody());
+        server.verify();
+    }
+
+    private static ResponseEntity<Object> ok(String body) {
+        return ResponseEntity.ok(body.getBytes());
+    }
+}
@@ -0,0 +1,148 @@
+package ru.practicum.gateway.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import ru.practicum.gateway.config.ResponseCacheProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+    private static final int THREADS = 8;
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private SimpleMeterRegistry registry;
+    private SingleFlight singleFlight;
+    private ResponseCache.Route route;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        singleFlight = new SingleFlight(registry);
+        route = new ResponseCache(new ResponseCacheProperties(), registry).route(ResponseCache.ITEMS);
+    }
+
+    @Test
+    @DisplayName("Одновременные одинаковые чтения уходят на сервер один раз и получают один ответ")
+    void shouldCallServerOnceForConcurrentReads() throws Exception {
+        CompletableFuture<ResponseEntity<Object>> server = new CompletableFuture<>();
+        SingleFlight.Key key = key("1");
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch ready = new CountDownLatch(1);
+        List<Future<CompletableFuture<ResponseEntity<Object>>>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    ready.await();
+                    return singleFlight.execute(key, call(server));
+                }));
+            }
+            ready.countDown();
+            List<CompletableFuture<ResponseEntity<Object>>> responses = new ArrayList<>();
+            for (Future<CompletableFuture<ResponseEntity<Object>>> future : futures) {
+                responses.add(future.get(10, TimeUnit.SECONDS));
+            }
+            ResponseEntity<Object> response = ResponseEntity.ok("item".getBytes());
+            server.complete(response);
+
+            assertEquals(1, calls.get());
+            for (CompletableFuture<ResponseEntity<Object>> future : responses) {
+                assertSame(response, future.join());
+            }
+            assertEquals(THREADS - 1, registry.get("shareit.gateway.reads").tag("coalesced", "true")
+                    .counter().count());
+            assertEquals((double) (THREADS - 1) / THREADS,
+                    registry.get("shareit.gateway.coalescing.ratio").gauge().value(), 1e-9);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Ошибка сервера достается всем ожидающим, следующее чтение снова идет на сервер")
+    void shouldPropagateFailureAndRetryAfterIt() {
+        CompletableFuture<ResponseEntity<Object>> failing = new CompletableFuture<>();
+        SingleFlight.Key key = key("1");
+        CompletableFuture<ResponseEntity<Object>> leader = singleFlight.execute(key, call(failing));
+        CompletableFuture<ResponseEntity<Object>> joined = singleFlight.execute(key, call(failing));
+
+        failing.completeExceptionally(new IllegalStateException("сервер недоступен"));
+
+        assertEquals(1, calls.get());
+        CompletionException leaderError = assertThrows(CompletionException.class, leader::join);
+        CompletionException joinedError = assertThrows(CompletionException.class, joined::join);
+        assertInstanceOf(IllegalStateException.class, leaderError.getCause());
+        assertInstanceOf(IllegalStateException.class, joinedError.getCause());
+
+        ResponseEntity<Object> response = ResponseEntity.ok("item".getBytes());
+        assertSame(response, singleFlight.execute(key, call(CompletableFuture.completedFuture(response))).join());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    @DisplayName("Синхронная ошибка чтения пробрасывается и не оставляет запись в полете")
+    void shouldClearFlightOnSynchronousFailure() {
+        SingleFlight.Key key = key("1");
+
+        assertThrows(IllegalStateException.class, () -> singleFlight.execute(key, () -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("ошибка до запроса");
+        }));
+        singleFlight.execute(key, call(new CompletableFuture<>()));
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    @DisplayName("Одинаковые чтения разных пользователей не объединяются")
+    void shouldNotCoalesceDifferentUsers() {
+        CompletableFuture<ResponseEntity<Object>> server = new CompletableFuture<>();
+
+        CompletableFuture<ResponseEntity<Object>> owner = singleFlight.execute(key("1"), call(server));
+        CompletableFuture<ResponseEntity<Object>> booker = singleFlight.execute(key("2"), call(server));
+        CompletableFuture<ResponseEntity<Object>> anonymous = singleFlight.execute(key(null), call(server));
+
+        assertEquals(3, calls.get());
+        assertNotSame(owner, booker);
+        assertNotSame(owner, anonymous);
+    }
+
+    @Test
+    @DisplayName("Чтение после изменения через шлюз не присоединяется к запросу, отправленному до него")
+    void shouldNotCoalesceAcrossInvalidation() {
+        CompletableFuture<ResponseEntity<Object>> server = new CompletableFuture<>();
+
+        singleFlight.execute(key("1"), call(server));
+        route.invalidate();
+        singleFlight.execute(key("1"), call(server));
+
+        assertEquals(2, calls.get());
+    }
+
+    private SingleFlight.Key key(String userId) {
+        return new SingleFlight.Key(route.key(HttpMethod.GET, "/items/1", userId), List.of());
+    }
+
+    private Supplier<CompletableFuture<ResponseEntity<Object>>> call(
+            CompletableFuture<ResponseEntity<Object>> response) {
+        return () -> {
+            calls.incrementAndGet();
+            return response;
+        };
+    }
+}
@@ -0,0 +1,43 @@
+package ru.practicum.gateway.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ServerHttpClientConfigTest {
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withUserConfiguration(ServerHttpClientConfig.class);
+
+    @ParameterizedTest
+    @ValueSource(strings = {"non-blocking", "NON_BLOCKING", "non_blocking"})
+    @DisplayName("Любое написание non-blocking, принимаемое enum, включает коннектор WebClient")
+    void shouldCreateConnectorInNonBlockingMode(String mode) {
+        runner.withPropertyValues("shareit-server.http.mode=" + mode)
+                .run(context -> {
+                    assertThat(context).hasNotFailed();
+                    assertThat(context.getBean(ServerHttpProperties.class).getMode())
+                            .isEqualTo(ServerHttpProperties.Mode.NON_BLOCKING);
+                    assertThat(context).hasBean("serverHttpConnector");
+                    assertThat(context).hasSingleBean(ClientHttpConnector.class);
+                });
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"blocking", "BLOCKING"})
+    @DisplayName("В режиме blocking коннектор WebClient не создается")
+    void shouldNotCreateConnectorInBlockingMode(String mode) {
+        runner.withPropertyValues("shareit-server.http.mode=" + mode)
+                .run(context -> assertThat(context).doesNotHaveBean(ClientHttpConnector.class));
+    }
+
+    @Test
+    @DisplayName("По умолчанию шлюз работает через RestTemplate")
+    void shouldBeBlockingByDefault() {
+        runner.run(context -> assertThat(context).doesNotHaveBean(ClientHttpConnector.class));
+    }
+}
@@ -1,20 +1,36 @@
 package ru.practicum.server.booking;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AllArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.server.booking.dto.BookingCursor;
+import ru.practicum.server.booking.dto.BookingDecisionDto;
+import ru.practicum.server.booking.dto.BookingDecisionResult;
 import ru.practicum.server.booking.dto.BookingDtoInput;
 import ru.practicum.server.booking.dto.BookingDto;
+import ru.practicum.server.booking.model.State;
 import ru.practicum.server.booking.service.BookingService;
 
 import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
+@Validated
 @RestController
 @AllArgsConstructor
 @RequestMapping(path = "/bookings")
 public class BookingController {
     private BookingService bookingService;
+    private ObjectMapper objectMapper;
     private static final String HEADER = "X-Sharer-User-Id";
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
     @PostMapping
     public BookingDto addReservation(@RequestHeader(HEADER) Long userId,
@@ -22,6 +38,12 @@ public class BookingController {
         return bookingService.addBooking(userId, bookingDtoInput);
     }
 
+    @PostMapping("/batch")
+    public List<BookingDto> addReservations(@RequestHeader(HEADER) Long userId,
+                                            @RequestBody @NotEmpty List<@Valid BookingDtoInput> bookingDtoInputs) {
+        return bookingService.addBookings(userId, bookingDtoInputs);
+    }
+
     @PatchMapping("/{bookingId}")
     public BookingDto setApprovedByOwner(@PathVariable Long bookingId,
                                          @RequestParam("approved") boolean approved,
@@ -29,26 +51,83 @@ public class BookingController {
         return bookingService.setApprovedByOwner(userId, bookingId, approved);
     }
 
+    @PatchMapping("/owner/decisions")
+    public List<BookingDecisionResult> setDecisionsByOwner(@RequestHeader(HEADER) Long userId,
+                                                           @RequestBody @NotEmpty
+                                                           List<@Valid BookingDecisionDto> decisions) {
+        return bookingService.setDecisionsByOwner(userId, decisions);
+    }
+
     @GetMapping("/{bookingId}")
     public BookingDto getBookingById(@PathVariable long bookingId,
-                                     @RequestHeader(HEADER) Long userId) {
+                                     @RequestHeader(HEADER) Long userId,
+                                     WebRequest request) {
+        if (bookingService.getBookingETag(bookingId, userId).map(request::checkNotModified).orElse(false)) {
+            return null;
+        }
         return bookingService.getBookingById(bookingId, userId);
     }
 
     @GetMapping
-    public List<BookingDto> getAllReservationsByUserId(@RequestHeader(HEADER) Long userId,
-                                                       @RequestParam(defaultValue = "ALL") String state,
-                                                       @RequestParam(defaultValue = "0") int from,
-                                                       @RequestParam(defaultValue = "10") int size) {
-        return bookingService.getAllBookings(state, userId, "booker", from, size);
+    public ResponseEntity<List<BookingDto>> getAllReservationsByUserId(@RequestHeader(HEADER) Long userId,
+                                                                       @RequestParam(defaultValue = "ALL") String state,
+                                                                       @RequestParam(defaultValue = "0") int from,
+                                                                       @RequestParam(defaultValue = "10") int size,
+                                                                       @RequestParam(required = false) String cursor) {
+        return getPage(state, userId, "booker", from, size, cursor);
     }
 
     @GetMapping("/owner")
-    public List<BookingDto> getAllReservationsByOwnerId(@RequestHeader(HEADER) Long userId,
-                                                        @RequestParam(defaultValue = "ALL") String state,
-                                                        @RequestParam(defaultValue = "0") int from,
-                                                        @RequestParam(defaultValue = "10") int size) {
-        return bookingService.getAllBookings(state, userId, "owner", from, size);
+    public ResponseEntity<List<BookingDto>> getAllReservationsByOwnerId(@RequestHeader(HEADER) Long userId,
+                                                                        @RequestParam(defaultValue = "ALL") String state,
+                                                                        @RequestParam(defaultValue = "0") int from,
+                                                                        @RequestParam(defaultValue = "10") int size,
+                                                                        @RequestParam(required = false) String cursor) {
+        return getPage(state, userId, "owner", from, size, cursor);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportReservationsByUserId(@RequestHeader(HEADER) Long userId,
+                                                                            @RequestParam(defaultValue = "ALL")
+                                                                            String state) {
+        return export(state, userId, "booker");
+    }
+
+    @GetMapping(value = "/owner/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportReservationsByOwnerId(@RequestHeader(HEADER) Long userId,
+                                                                             @RequestParam(defaultValue = "ALL")
+                                                                             String state) {
+        return export(state, userId, "owner");
+    }
+
+    private ResponseEntity<StreamingResponseBody> export(String state, Long userId, String typeUser) {
+        // неизвестный стейт отклоняется до начала выгрузки, пока ответ еще можно вернуть с ошибкой
+        State.parse(state);
+        StreamingResponseBody body = out -> bookingService.exportBookings(state, userId, typeUser, booking -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(booking));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    private ResponseEntity<List<BookingDto>> getPage(String state, Long userId, String typeUser,
+                                                     int from, int size, String cursor) {
+        List<BookingDto> bookings = cursor == null
+                ? bookingService.getAllBookings(state, userId, typeUser, from, size)
+                : bookingService.getAllBookingsAfter(state, userId, typeUser, cursor, size);
+        if (bookings.size() < size) {
+            return ResponseEntity.ok(bookings);
+        }
+        BookingCursor next = BookingCursor.of(bookings.get(bookings.size() - 1));
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, next.encode())
+                .body(bookings);
     }
 }
 
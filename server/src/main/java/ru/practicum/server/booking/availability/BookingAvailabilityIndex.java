@@ -0,0 +1,171 @@
+package ru.practicum.server.booking.availability;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.server.booking.model.Booking;
+import ru.practicum.server.booking.model.Status;
+import ru.practicum.server.booking.storage.BookingStorage;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Индекс занятости вещей по активным (WAITING и APPROVED) броням.
+ * Таймлайн вещи загружается из БД при первом обращении и дальше поддерживается сервисом бронирования.
+ * Блокировка вещи удерживается до завершения транзакции, при откате таймлайн сбрасывается,
+ * при коммите публикуется его снимок для чтения календаря без блокировки.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingAvailabilityIndex {
+    public static final List<Status> ACTIVE_STATUSES = List.of(Status.WAITING, Status.APPROVED);
+    private static final int STRIPES = 64;
+
+    private final BookingStorage bookingStorage;
+    private final Map<Long, ItemTimeline> timelines = new ConcurrentHashMap<>();
+    private final ReentrantLock[] locks = createLocks();
+
+    public void lockItem(Long itemId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Блокировка вещи возможна только внутри транзакции");
+        }
+        ReentrantLock lock = lockFor(itemId);
+        lock.lock();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status == STATUS_COMMITTED) {
+                        publish(itemId);
+                    } else {
+                        invalidate(itemId);
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        });
+    }
+
+    public void lockItems(Collection<Long> itemIds) {
+        itemIds.stream()
+                .distinct()
+                .sorted(Comparator.comparingInt(BookingAvailabilityIndex::stripe))
+                .forEach(this::lockItem);
+    }
+
+    public boolean isFree(Long itemId, LocalDateTime start, LocalDateTime end) {
+        return !timeline(itemId).overlaps(start, end);
+    }
+
+    /**
+     * Свободна ли вещь от подтвержденных броней, кроме самой брони. Ожидающие брони между собой могут пересекаться:
+     * в БД, перенесенной без проверки пересечений при создании, такие брони остались.
+     */
+    public boolean isFreeOfApproved(Long itemId, Long bookingId, LocalDateTime start, LocalDateTime end) {
+        return !timeline(itemId).overlapsApproved(bookingId, start, end);
+    }
+
+    /**
+     * Слитые блоки занятости вещи в окне [from, to) по закоммиченным броням. Читается опубликованный снимок
+     * таймлайна, блокировка вещи не берется и не ждет транзакций, меняющих брони вещи.
+     */
+    public List<TimeSlot> busyBetween(Long itemId, LocalDateTime from, LocalDateTime to) {
+        return ItemTimeline.busyBetween(snapshot(itemId), from, to);
+    }
+
+    /**
+     * Снимка нет, пока таймлайн не загружен: если вещь свободна, он загружается и публикуется
+     * под кратковременной блокировкой, иначе календарь строится из БД без сохранения.
+     */
+    private NavigableMap<LocalDateTime, LocalDateTime> snapshot(Long itemId) {
+        ItemTimeline timeline = timelines.get(itemId);
+        NavigableMap<LocalDateTime, LocalDateTime> published = timeline == null ? null : timeline.published();
+        if (published != null) {
+            return published;
+        }
+        ReentrantLock lock = lockFor(itemId);
+        if (lock.tryLock()) {
+            try {
+                return timeline(itemId).published();
+            } finally {
+                lock.unlock();
+            }
+        }
+        ItemTimeline loaded = new ItemTimeline();
+        loaded.load(bookingStorage.findIntervalsByItemId(itemId, ACTIVE_STATUSES, LocalDateTime.now()));
+        return loaded.published();
+    }
+
+    public void add(Booking booking) {
+        add(booking.getItem().getId(), new BookingInterval(booking.getId(), booking.getStart(), booking.getEnd(),
+                booking.getStatus()));
+    }
+
+    public void add(Long itemId, BookingInterval interval) {
+        timeline(itemId).add(interval);
+    }
+
+    public void remove(Booking booking) {
+        remove(booking.getItem().getId(), booking.getId());
+    }
+
+    public void remove(Long itemId, Long bookingId) {
+        timeline(itemId).remove(bookingId);
+    }
+
+    private void publish(Long itemId) {
+        ItemTimeline timeline = timelines.get(itemId);
+        if (timeline != null) {
+            timeline.publish();
+        }
+    }
+
+    /**
+     * Сбрасывает таймлайн вещи, следующее обращение под блокировкой загрузит его из БД.
+     */
+    public void invalidate(Long itemId) {
+        ItemTimeline timeline = timelines.get(itemId);
+        if (timeline != null) {
+            timeline.invalidate();
+        }
+    }
+
+    ItemTimeline timeline(Long itemId) {
+        if (!lockFor(itemId).isHeldByCurrentThread()) {
+            throw new IllegalStateException("Вещь с id=" + itemId + " не заблокирована текущей транзакцией");
+        }
+        ItemTimeline timeline = timelines.computeIfAbsent(itemId, id -> new ItemTimeline());
+        if (!timeline.isLoaded()) {
+            timeline.load(bookingStorage.findIntervalsByItemId(itemId, ACTIVE_STATUSES, LocalDateTime.now()));
+            log.debug("Загружен таймлайн вещи с id={}", itemId);
+        }
+        return timeline;
+    }
+
+    private ReentrantLock lockFor(Long itemId) {
+        return locks[stripe(itemId)];
+    }
+
+    private static int stripe(Long itemId) {
+        return Math.floorMod(itemId.hashCode(), STRIPES);
+    }
+
+    private static ReentrantLock[] createLocks() {
+        ReentrantLock[] locks = new ReentrantLock[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+}
@@ -0,0 +1,16 @@
+package ru.practicum.server.booking.availability;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.practicum.server.booking.model.Status;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class BookingInterval {
+    private Long bookingId;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private Status status;
+}
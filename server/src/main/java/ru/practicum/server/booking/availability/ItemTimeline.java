@@ -0,0 +1,156 @@
+package ru.practicum.server.booking.availability;
+
+import ru.practicum.server.booking.model.Status;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Активные брони одной вещи. Пересекающиеся интервалы слиты в непересекающиеся блоки занятости,
+ * поэтому проверка пересечения сводится к одному поиску в TreeMap.
+ * Не потокобезопасен, доступ только под блокировкой вещи в {@link BookingAvailabilityIndex}.
+ * Исключение — опубликованный снимок: неизменяемая копия блоков на момент загрузки или последнего коммита,
+ * его можно читать без блокировки.
+ */
+class ItemTimeline {
+    private final Map<Long, BookingInterval> intervals = new HashMap<>();
+    private final TreeMap<LocalDateTime, LocalDateTime> busy = new TreeMap<>();
+    private boolean loaded;
+    private volatile NavigableMap<LocalDateTime, LocalDateTime> published;
+
+    boolean isLoaded() {
+        return loaded;
+    }
+
+    void load(List<BookingInterval> bookings) {
+        intervals.clear();
+        bookings.forEach(b -> intervals.put(b.getBookingId(), b));
+        rebuild();
+        loaded = true;
+        publish();
+    }
+
+    void invalidate() {
+        published = null;
+        intervals.clear();
+        busy.clear();
+        loaded = false;
+    }
+
+    void publish() {
+        if (loaded) {
+            published = Collections.unmodifiableNavigableMap(new TreeMap<>(busy));
+        }
+    }
+
+    /**
+     * Снимок блоков занятости или null, если таймлайн не загружен или сброшен после отката.
+     */
+    NavigableMap<LocalDateTime, LocalDateTime> published() {
+        return published;
+    }
+
+    boolean overlaps(LocalDateTime start, LocalDateTime end) {
+        Map.Entry<LocalDateTime, LocalDateTime> block = busy.lowerEntry(end);
+        return block != null && block.getValue().isAfter(start);
+    }
+
+    /**
+     * Пересекается ли интервал с подтвержденной бронью, кроме брони bookingId. Проверка идет по всем броням вещи,
+     * а не по блокам занятости, в которых ожидающие и подтвержденные брони слиты.
+     */
+    boolean overlapsApproved(Long bookingId, LocalDateTime start, LocalDateTime end) {
+        return intervals.values().stream()
+                .anyMatch(b -> b.getStatus() == Status.APPROVED
+                        && !b.getBookingId().equals(bookingId)
+                        && b.getStart().isBefore(end)
+                        && b.getEnd().isAfter(start));
+    }
+
+    boolean contains(Long bookingId) {
+        return intervals.containsKey(bookingId);
+    }
+
+    void add(BookingInterval interval) {
+        intervals.put(interval.getBookingId(), interval);
+        merge(interval.getStart(), interval.getEnd());
+    }
+
+    void remove(Long bookingId) {
+        if (intervals.remove(bookingId) != null) {
+            rebuild();
+        }
+    }
+
+    NavigableMap<LocalDateTime, LocalDateTime> busyBlocks() {
+        return busy;
+    }
+
+    /**
+     * Блоки занятости, пересекающие [from, to), обрезанные по границам окна.
+     */
+    static List<TimeSlot> busyBetween(NavigableMap<LocalDateTime, LocalDateTime> busy, LocalDateTime from,
+                                      LocalDateTime to) {
+        Map.Entry<LocalDateTime, LocalDateTime> first = busy.lowerEntry(from);
+        LocalDateTime fromKey = first != null && first.getValue().isAfter(from) ? first.getKey() : from;
+        List<TimeSlot> slots = new ArrayList<>();
+        busy.subMap(fromKey, true, to, false).forEach((start, end) ->
+                slots.add(new TimeSlot(max(start, from), min(end, to))));
+        return slots;
+    }
+
+    private void merge(LocalDateTime start, LocalDateTime end) {
+        Map.Entry<LocalDateTime, LocalDateTime> lower = busy.floorEntry(start);
+        if (lower != null && !lower.getValue().isBefore(start)) {
+            start = lower.getKey();
+            end = max(end, lower.getValue());
+        }
+        Iterator<Map.Entry<LocalDateTime, LocalDateTime>> it = busy.subMap(start, true, end, true)
+                .entrySet().iterator();
+        while (it.hasNext()) {
+            end = max(end, it.next().getValue());
+            it.remove();
+        }
+        busy.put(start, end);
+    }
+
+    private void rebuild() {
+        busy.clear();
+        List<BookingInterval> sorted = intervals.values().stream()
+                .sorted(Comparator.comparing(BookingInterval::getStart))
+                .collect(Collectors.toList());
+        LocalDateTime blockStart = null;
+        LocalDateTime blockEnd = null;
+        for (BookingInterval interval : sorted) {
+            if (blockEnd != null && !interval.getStart().isAfter(blockEnd)) {
+                blockEnd = max(blockEnd, interval.getEnd());
+                continue;
+            }
+            if (blockStart != null) {
+                busy.put(blockStart, blockEnd);
+            }
+            blockStart = interval.getStart();
+            blockEnd = interval.getEnd();
+        }
+        if (blockStart != null) {
+            busy.put(blockStart, blockEnd);
+        }
+    }
+
+    private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+}
@@ -0,0 +1,21 @@
+package ru.practicum.server.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingDecisionResult {
+    private Long bookingId;
+    private Outcome outcome;
+
+    public enum Outcome {
+        APPROVED,
+        REJECTED,
+        ALREADY_APPROVED,
+        CONFLICT,
+        NOT_FOUND
+    }
+}
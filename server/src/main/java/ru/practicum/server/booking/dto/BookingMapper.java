@@ -3,6 +3,7 @@ package ru.practicum.server.booking.dto;
 import lombok.experimental.UtilityClass;
 import ru.practicum.server.booking.model.Booking;
 import ru.practicum.server.booking.model.Status;
+import ru.practicum.server.booking.pointer.BookingSnapshot;
 import ru.practicum.server.item.model.Item;
 import ru.practicum.server.user.model.User;
 
@@ -20,6 +21,19 @@ public class BookingMapper {
                 .build();
     }
 
+    public static BookingDto toBookingDto(BookingRow row) {
+        User owner = new User(row.getOwnerId(), row.getOwnerName(), row.getOwnerEmail());
+        return BookingDto.builder()
+                .id(row.getId())
+                .item(new Item(row.getItemId(), row.getItemName(), row.getItemDescription(), owner,
+                        row.getItemAvailable(), row.getItemRequestId()))
+                .start(row.getStart())
+                .end(row.getEnd())
+                .booker(new User(row.getBookerId(), row.getBookerName(), row.getBookerEmail()))
+                .status(row.getStatus())
+                .build();
+    }
+
     public static Booking toBooking(BookingDtoInput dto, Item item, User booker) {
         return Booking.builder()
                 .id(dto.getId())
@@ -41,4 +55,16 @@ public class BookingMapper {
                 .build();
     }
 
-}
\ No newline at end of file
+    public static BookingDtoSpecial toBookingDtoForItem(BookingSnapshot snapshot) {
+        if (snapshot == null) {
+            return null;
+        }
+        return BookingDtoSpecial.builder()
+                .id(snapshot.getBookingId())
+                .start(snapshot.getStart())
+                .end(snapshot.getEnd())
+                .bookerId(snapshot.getBookerId())
+                .status(Status.APPROVED)
+                .build();
+    }
+}
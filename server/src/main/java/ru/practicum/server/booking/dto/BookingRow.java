@@ -0,0 +1,31 @@
+package ru.practicum.server.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.practicum.server.booking.model.Status;
+
+import java.time.LocalDateTime;
+
+/**
+ * Плоская строка брони: выбирается одним запросом из bookings, items и users без загрузки сущностей
+ * и собирается в {@link BookingDto} через {@link BookingMapper#toBookingDto(BookingRow)}.
+ */
+@Data
+@AllArgsConstructor
+public class BookingRow {
+    private Long id;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private Status status;
+    private Long itemId;
+    private String itemName;
+    private String itemDescription;
+    private Boolean itemAvailable;
+    private Long itemRequestId;
+    private Long ownerId;
+    private String ownerName;
+    private String ownerEmail;
+    private Long bookerId;
+    private String bookerName;
+    private String bookerEmail;
+}
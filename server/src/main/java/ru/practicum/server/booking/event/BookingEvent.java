@@ -0,0 +1,51 @@
+package ru.practicum.server.booking.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.server.booking.model.Booking;
+import ru.practicum.server.booking.model.Status;
+import ru.practicum.server.outbox.OutboxPayload;
+
+import java.time.LocalDateTime;
+
+/**
+ * Событие жизненного цикла брони: создание или решение владельца.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingEvent implements OutboxPayload {
+    public static final String CREATED = "BOOKING_CREATED";
+    public static final String APPROVED = "BOOKING_APPROVED";
+    public static final String REJECTED = "BOOKING_REJECTED";
+
+    private String type;
+    private Long bookingId;
+    private Long itemId;
+    private Long bookerId;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private Status status;
+
+    public static BookingEvent created(Booking booking) {
+        return new BookingEvent(CREATED, booking.getId(), booking.getItem().getId(), booking.getBooker().getId(),
+                booking.getStart(), booking.getEnd(), booking.getStatus());
+    }
+
+    public static BookingEvent decided(Long bookingId, Long itemId, Long bookerId,
+                                       LocalDateTime start, LocalDateTime end, Status status) {
+        return new BookingEvent(status == Status.APPROVED ? APPROVED : REJECTED, bookingId, itemId, bookerId,
+                start, end, status);
+    }
+
+    @Override
+    public String eventType() {
+        return type;
+    }
+
+    @Override
+    public Long aggregateId() {
+        return bookingId;
+    }
+}
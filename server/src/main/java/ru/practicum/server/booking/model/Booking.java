@@ -18,17 +18,24 @@ public class Booking {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "booking_id")
     private Long id;
-    @OneToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "item_id")
     private Item item;
     @Column(name = "start_date")
     private LocalDateTime start;
     @Column(name = "end_date")
     private LocalDateTime end;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "booker_id", referencedColumnName = "user_id")
     private User booker;
     @Enumerated(value = EnumType.STRING)
     @Column(name = "status")
     private Status status;
+    @Version
+    @Column(name = "version")
+    private long version;
+
+    public Booking(Long id, Item item, LocalDateTime start, LocalDateTime end, User booker, Status status) {
+        this(id, item, start, end, booker, status, 0);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package ru.practicum.server.booking.model;
+
+import ru.practicum.server.exception.NotValidException;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+public enum State {
+    ALL, WAITING, CURRENT, PAST, REJECTED, FUTURE;
+
+    public static Set<State> parse(String states) {
+        if (states == null || states.isBlank()) {
+            return EnumSet.of(ALL);
+        }
+        Set<State> result = EnumSet.noneOf(State.class);
+        Arrays.stream(states.split(","))
+                .map(String::trim)
+                .forEach(state -> result.add(from(state)));
+        return result;
+    }
+
+    private static State from(String state) {
+        for (State value : values()) {
+            if (value.name().equalsIgnoreCase(state)) {
+                return value;
+            }
+        }
+        throw new NotValidException("Unknown state: UNSUPPORTED_STATUS");
+    }
+}
@@ -0,0 +1,30 @@
+package ru.practicum.server.booking.pointer;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.server.booking.model.Booking;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Embeddable
+public class BookingSnapshot {
+    @Column(name = "booking_id")
+    private Long bookingId;
+    @Column(name = "booker_id")
+    private Long bookerId;
+    @Column(name = "start_date")
+    private LocalDateTime start;
+    @Column(name = "end_date")
+    private LocalDateTime end;
+
+    public static BookingSnapshot of(Booking booking) {
+        return booking == null ? null : new BookingSnapshot(
+                booking.getId(), booking.getBooker().getId(), booking.getStart(), booking.getEnd());
+    }
+}
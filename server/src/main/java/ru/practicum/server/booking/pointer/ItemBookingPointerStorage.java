@@ -0,0 +1,21 @@
+package ru.practicum.server.booking.pointer;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ItemBookingPointerStorage extends JpaRepository<ItemBookingPointer, Long> {
+
+    @Query("SELECT p.itemId " +
+            "FROM ItemBookingPointer AS p " +
+            "WHERE p.next.start <= ?1")
+    List<Long> findStaleItemIds(LocalDateTime time, Pageable page);
+
+    @Query("SELECT i.id " +
+            "FROM Item AS i " +
+            "WHERE NOT EXISTS (SELECT p FROM ItemBookingPointer AS p WHERE p.itemId = i.id)")
+    List<Long> findItemIdsWithoutPointer(Pageable page);
+}
@@ -0,0 +1,104 @@
+package ru.practicum.server.booking.pointer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.server.booking.availability.BookingAvailabilityIndex;
+import ru.practicum.server.booking.model.Booking;
+import ru.practicum.server.booking.model.Status;
+import ru.practicum.server.booking.storage.BookingStorage;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read model последней и следующей брони вещей.
+ * Пишется сервисом бронирования под блокировкой вещи и фоновым обновлением устаревших записей,
+ * чтение устаревших или отсутствующих записей пересчитывает их на лету.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemBookingPointers {
+    private static final int REFRESH_BATCH = 500;
+
+    private final ItemBookingPointerStorage pointerStorage;
+    private final BookingStorage bookingStorage;
+    private final BookingAvailabilityIndex availabilityIndex;
+
+    public Map<Long, ItemBookingPointer> getForItems(Collection<Long> itemIds) {
+        LocalDateTime time = LocalDateTime.now();
+        Map<Long, ItemBookingPointer> pointers = new HashMap<>();
+        pointerStorage.findAllById(itemIds).stream()
+                .filter(p -> !p.isStale(time))
+                .forEach(p -> pointers.put(p.getItemId(), p));
+        List<Long> missing = new ArrayList<>();
+        itemIds.stream()
+                .filter(id -> !pointers.containsKey(id))
+                .forEach(missing::add);
+        if (!missing.isEmpty()) {
+            pointers.putAll(resolve(missing, bookingStorage.findLastAndNextByItemIn(missing, time), time));
+        }
+        return pointers;
+    }
+
+    /**
+     * Пересчитывает записи вещей, вызывающий должен удерживать их блокировки в {@link BookingAvailabilityIndex}.
+     */
+    public void refresh(Collection<Long> itemIds) {
+        Set<Long> ids = new LinkedHashSet<>(itemIds);
+        LocalDateTime time = LocalDateTime.now();
+        pointerStorage.saveAll(resolve(ids, bookingStorage.findLastAndNextByItemIn(ids, time), time).values());
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking-pointers.refresh-delay}",
+            initialDelayString = "${shareit.booking-pointers.refresh-delay}")
+    @Transactional
+    public void refreshStale() {
+        PageRequest batch = PageRequest.of(0, REFRESH_BATCH);
+        Set<Long> ids = new LinkedHashSet<>(pointerStorage.findStaleItemIds(LocalDateTime.now(), batch));
+        ids.addAll(pointerStorage.findItemIdsWithoutPointer(batch));
+        if (ids.isEmpty()) {
+            return;
+        }
+        availabilityIndex.lockItems(ids);
+        refresh(ids);
+        log.debug("Обновлены last/next брони {} вещей", ids.size());
+    }
+
+    /**
+     * Один проход по броням: последняя (по id) начавшаяся и ближайшая будущая APPROVED бронь каждой вещи.
+     */
+    public static Map<Long, ItemBookingPointer> resolve(Collection<Long> itemIds, Collection<Booking> bookings,
+                                                        LocalDateTime time) {
+        Map<Long, Booking> lastByItem = new HashMap<>();
+        Map<Long, Booking> nextByItem = new HashMap<>();
+        for (Booking b : bookings) {
+            if (!b.getStatus().equals(Status.APPROVED)) {
+                continue;
+            }
+            Long itemId = b.getItem().getId();
+            if ((b.getStart().isBefore(time) && b.getEnd().isAfter(time)) || b.getEnd().isBefore(time)) {
+                lastByItem.merge(itemId, b, (old, cur) -> cur.getId() > old.getId() ? cur : old);
+            } else if (b.getStart().isAfter(time)) {
+                nextByItem.merge(itemId, b, (old, cur) -> cur.getStart().isBefore(old.getStart()) ? cur : old);
+            }
+        }
+        Map<Long, ItemBookingPointer> pointers = new HashMap<>();
+        for (Long itemId : itemIds) {
+            pointers.put(itemId, new ItemBookingPointer(itemId,
+                    BookingSnapshot.of(lastByItem.get(itemId)),
+                    BookingSnapshot.of(nextByItem.get(itemId))));
+        }
+        return pointers;
+    }
+}
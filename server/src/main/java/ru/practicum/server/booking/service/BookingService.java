@@ -1,16 +1,36 @@
 package ru.practicum.server.booking.service;
 
+import ru.practicum.server.booking.dto.BookingDecisionDto;
+import ru.practicum.server.booking.dto.BookingDecisionResult;
 import ru.practicum.server.booking.dto.BookingDtoInput;
 import ru.practicum.server.booking.dto.BookingDto;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface BookingService {
     BookingDto addBooking(Long bookerId, BookingDtoInput bookingInputDto);
 
+    List<BookingDto> addBookings(Long bookerId, List<BookingDtoInput> bookingInputDtos);
+
     BookingDto setApprovedByOwner(Long ownerId, Long bookingId, boolean approved);
 
+    List<BookingDecisionResult> setDecisionsByOwner(Long ownerId, List<BookingDecisionDto> decisions);
+
     BookingDto getBookingById(Long bookingId, Long userId);
 
+    /**
+     * ETag брони по версиям брони, вещи, владельца и букера, пустой, если бронь пользователю недоступна.
+     */
+    Optional<String> getBookingETag(Long bookingId, Long userId);
+
     List<BookingDto> getAllBookings(String state, Long userId, String typeUser, int from, int size);
+
+    List<BookingDto> getAllBookingsAfter(String state, Long userId, String typeUser, String cursor, int size);
+
+    /**
+     * Передает все брони пользователя в consumer по одной, не собирая список в памяти.
+     */
+    void exportBookings(String state, Long userId, String typeUser, Consumer<BookingDto> consumer);
 }
\ No newline at end of file
@@ -2,25 +2,46 @@ package ru.practicum.server.booking.service;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.server.booking.availability.BookingAvailabilityIndex;
+import ru.practicum.server.booking.availability.BookingInterval;
+import ru.practicum.server.booking.dto.BookingDecisionDto;
+import ru.practicum.server.booking.dto.BookingDecisionResult;
+import ru.practicum.server.booking.dto.BookingCursor;
 import ru.practicum.server.booking.dto.BookingDtoInput;
 import ru.practicum.server.booking.dto.BookingMapper;
 import ru.practicum.server.booking.dto.BookingDto;
+import ru.practicum.server.booking.dto.BookingRow;
+import ru.practicum.server.booking.event.BookingEvent;
 import ru.practicum.server.booking.model.*;
+import ru.practicum.server.booking.pointer.ItemBookingPointers;
+import ru.practicum.server.booking.storage.BookingFilter;
+import ru.practicum.server.booking.storage.BookingStatusView;
 import ru.practicum.server.booking.storage.BookingStorage;
-import ru.practicum.server.exception.NotValidException;
 import ru.practicum.server.item.model.Item;
 import ru.practicum.server.item.service.ItemService;
+import ru.practicum.server.outbox.Outbox;
 import ru.practicum.server.user.model.User;
 import ru.practicum.server.user.service.UserService;
+import ru.practicum.server.util.ETag;
 import ru.practicum.server.util.Log;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -29,15 +50,26 @@ public class BookingServiceImpl implements BookingService {
     private final UserService userService;
     private final ItemService itemService;
     private final BookingStorage bookingStorage;
+    private final BookingAvailabilityIndex availabilityIndex;
+    private final ItemBookingPointers itemBookingPointers;
+    private final Outbox outbox;
 
     @Transactional(readOnly = true)
     @Override
     public BookingDto getBookingById(Long bookingId, Long userId) {
-        Booking booking = bookingStorage.findBookingOwnerOrBooker(bookingId, userId);
-        if (booking == null) {
+        Optional<BookingRow> booking = bookingStorage.findRowByIdForOwnerOrBooker(bookingId, userId);
+        if (booking.isEmpty()) {
             Log.andThrowNotFound("Booking не найден");
         }
-        return BookingMapper.toBookingDto(booking);
+        return BookingMapper.toBookingDto(booking.get());
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public Optional<String> getBookingETag(Long bookingId, Long userId) {
+        return bookingStorage.findStampByIdForOwnerOrBooker(bookingId, userId)
+                .map(stamp -> ETag.of(bookingId, stamp.getBookingVersion(), stamp.getItemVersion(),
+                        stamp.getOwnerVersion(), stamp.getBookerVersion()));
     }
 
     @Transactional
@@ -46,16 +78,65 @@ public class BookingServiceImpl implements BookingService {
         log.info("Запрошена бронь пользователем с id={}, на предмет {}", bookerId, dto);
         User booker = userService.getById(bookerId);
         Item item = itemService.getById(dto.getItemId());
-        validateAddBooking(bookerId, dto, item);
+        validateAddBooking("", bookerId, dto, item);
+        Optional<Booking> replaced = lockAndReleaseReplaced(item.getId(), dto.getId());
+        validateItemIsFree("", item.getId(), dto.getStart(), dto.getEnd());
         Booking booking = BookingMapper.toBooking(dto, item, booker);
+        replaced.ifPresent(old -> booking.setVersion(old.getVersion()));
         booking.setBooker(booker);
         booking.setStatus(Status.WAITING);
         booking.setItem(item);
         Booking bookingSaved = bookingStorage.save(booking);
+        availabilityIndex.add(bookingSaved);
+        replaced.ifPresent(old -> itemBookingPointers.refresh(List.of(old.getItem().getId(), item.getId())));
         log.debug("сохранен предмет: {}", bookingSaved);
+        if (replaced.isPresent()) {
+            // при замене брони save делает merge и возвращает копию с ленивыми ссылками, отдаем уже загруженные
+            booking.setId(bookingSaved.getId());
+            bookingSaved = booking;
+        }
+        outbox.publish(List.of(BookingEvent.created(bookingSaved)));
         return BookingMapper.toBookingDto(bookingSaved);
     }
 
+    @Transactional
+    @Override
+    public List<BookingDto> addBookings(Long bookerId, List<BookingDtoInput> dtos) {
+        log.info("Запрошен пакет из {} броней пользователем с id={}", dtos.size(), bookerId);
+        if (dtos.isEmpty()) {
+            Log.andThrowNotValid("Пакет броней пуст");
+        }
+        User booker = userService.getById(bookerId);
+        Map<Long, Item> items = itemService.findByIds(dtos.stream()
+                .map(BookingDtoInput::getItemId)
+                .collect(Collectors.toSet()));
+        List<Booking> bookings = new ArrayList<>();
+        for (int index = 0; index < dtos.size(); index++) {
+            BookingDtoInput dto = dtos.get(index);
+            String entry = batchEntry(index);
+            if (dto.getId() != null) {
+                Log.andThrowNotValid(entry + "Пакетом можно только создать брони, замена по id не поддерживается");
+            }
+            Item item = items.get(dto.getItemId());
+            if (item == null) {
+                Log.andThrowNotFound(entry + String.format("Не найден предмет с id=%s.", dto.getItemId()));
+            }
+            validateAddBooking(entry, bookerId, dto, item);
+            bookings.add(BookingMapper.toBooking(dto, item, booker));
+        }
+        availabilityIndex.lockItems(items.keySet());
+        validateBatchIsFree(bookings);
+        bookingStorage.insertAll(bookings);
+        bookings.forEach(availabilityIndex::add);
+        outbox.publish(bookings.stream()
+                .map(BookingEvent::created)
+                .collect(Collectors.toList()));
+        log.debug("Сохранен пакет из {} броней", bookings.size());
+        return bookings.stream()
+                .map(BookingMapper::toBookingDto)
+                .collect(Collectors.toList());
+    }
+
     @Transactional
     @Override
     public BookingDto setApprovedByOwner(Long userId, Long bookingId, boolean approved) {
@@ -63,84 +144,281 @@ public class BookingServiceImpl implements BookingService {
         if (booking == null) {
             Log.andThrowNotFound("Booking не найден");
         }
+        availabilityIndex.lockItem(booking.getItem().getId());
+        Status current = booking.getStatus();
         if (approved) {
-            if (booking.getStatus() == Status.APPROVED) {
+            if (current == Status.APPROVED) {
                 Log.andThrowNotValid(String.format("У бронирования с id=%d уже стоит статус APPROVED", bookingId));
             }
-            booking.setStatus(Status.APPROVED);
+            if (BookingAvailabilityIndex.ACTIVE_STATUSES.contains(current)) {
+                validateItemIsFreeOfApproved(booking);
+            } else {
+                validateItemIsFree("", booking.getItem().getId(), booking.getStart(), booking.getEnd());
+            }
+        }
+        Status status = approved ? Status.APPROVED : Status.REJECTED;
+        // статус меняется, только если его не успел изменить параллельный запрос, без блокировки строки
+        if (bookingStorage.updateStatusIfCurrent(bookingId, current, status) == 0) {
+            Log.andThrowConflict(String.format("Статус бронирования с id=%d изменен параллельным запросом", bookingId));
+        }
+        booking.setStatus(status);
+        if (approved) {
+            availabilityIndex.add(booking);
         } else {
-            booking.setStatus(Status.REJECTED);
+            availabilityIndex.remove(booking);
         }
-        Booking bookingSaved = bookingStorage.save(booking);
-        return BookingMapper.toBookingDto(bookingSaved);
+        itemBookingPointers.refresh(List.of(booking.getItem().getId()));
+        outbox.publish(List.of(BookingEvent.decided(bookingId, booking.getItem().getId(),
+                booking.getBooker().getId(), booking.getStart(), booking.getEnd(), status)));
+        return BookingMapper.toBookingDto(booking);
     }
 
     @Transactional
     @Override
+    public List<BookingDecisionResult> setDecisionsByOwner(Long ownerId, List<BookingDecisionDto> decisions) {
+        log.info("Запрошено {} решений по броням владельцем с id={}", decisions.size(), ownerId);
+        List<Long> ids = decisions.stream()
+                .map(BookingDecisionDto::getBookingId)
+                .collect(Collectors.toList());
+        if (ids.isEmpty() || new HashSet<>(ids).size() < ids.size()) {
+            Log.andThrowNotValid("Список решений пуст или содержит повторяющиеся id броней");
+        }
+        Map<Long, BookingStatusView> bookings = bookingStorage.findStatusesByIdInAndOwnerId(ids, ownerId).stream()
+                .collect(Collectors.toMap(BookingStatusView::getId, Function.identity()));
+        availabilityIndex.lockItems(bookings.values().stream()
+                .map(BookingStatusView::getItemId)
+                .collect(Collectors.toList()));
+        List<BookingDecisionResult> results = new ArrayList<>();
+        Map<Long, BookingStatusView> decided = new HashMap<>();
+        for (BookingDecisionDto decision : decisions) {
+            BookingStatusView booking = bookings.get(decision.getBookingId());
+            BookingDecisionResult.Outcome outcome = booking == null
+                    ? BookingDecisionResult.Outcome.NOT_FOUND
+                    : decide(booking, decision.getApproved());
+            if (decidedStatus(outcome) != null) {
+                decided.put(booking.getId(), booking);
+            }
+            results.add(new BookingDecisionResult(decision.getBookingId(), outcome));
+        }
+        if (decided.isEmpty()) {
+            return results;
+        }
+        applyDecisions(ownerId, results, decided);
+        List<BookingEvent> events = new ArrayList<>();
+        Set<Long> changedItemIds = new HashSet<>();
+        for (BookingDecisionResult result : results) {
+            BookingStatusView booking = decided.get(result.getBookingId());
+            if (booking == null) {
+                continue;
+            }
+            Status status = decidedStatus(result.getOutcome());
+            if (status == null) {
+                // решение не применено, таймлайн вещи уже изменен в decide и перечитывается из БД
+                availabilityIndex.invalidate(booking.getItemId());
+                continue;
+            }
+            changedItemIds.add(booking.getItemId());
+            events.add(BookingEvent.decided(booking.getId(), booking.getItemId(), booking.getBookerId(),
+                    booking.getStart(), booking.getEnd(), status));
+        }
+        log.debug("Применено {} решений по броням", events.size());
+        if (!events.isEmpty()) {
+            itemBookingPointers.refresh(changedItemIds);
+            outbox.publish(events);
+        }
+        return results;
+    }
+
+    /**
+     * Одно UPDATE на пару (новый статус, прочитанный статус): статусы прочитаны до блокировки вещей, поэтому бронь
+     * меняется, только если ее статус с тех пор тот же. Если группа обновилась не целиком, ее брони перечитываются,
+     * и брони, которые изменил параллельный запрос, получают исход CONFLICT, остальные решения применяются.
+     */
+    private void applyDecisions(Long ownerId, List<BookingDecisionResult> results,
+                                Map<Long, BookingStatusView> decided) {
+        Map<Status, Map<Status, List<Long>>> groups = results.stream()
+                .filter(result -> decided.containsKey(result.getBookingId()))
+                .collect(Collectors.groupingBy(result -> decidedStatus(result.getOutcome()),
+                        () -> new EnumMap<>(Status.class),
+                        Collectors.groupingBy(result -> decided.get(result.getBookingId()).getStatus(),
+                                () -> new EnumMap<>(Status.class),
+                                Collectors.mapping(BookingDecisionResult::getBookingId, Collectors.toList()))));
+        Map<Long, BookingDecisionResult> resultsById = results.stream()
+                .collect(Collectors.toMap(BookingDecisionResult::getBookingId, Function.identity()));
+        groups.forEach((status, byCurrent) -> byCurrent.forEach((current, ids) -> {
+            if (bookingStorage.updateStatuses(ids, current, status, ownerId) < ids.size()) {
+                markNotApplied(ownerId, ids, status, resultsById);
+            }
+        }));
+    }
+
+    /**
+     * Бронь, статус которой уже равен решению, считается примененной, даже если его выставил параллельный запрос.
+     */
+    private void markNotApplied(Long ownerId, List<Long> ids, Status status,
+                                Map<Long, BookingDecisionResult> results) {
+        Map<Long, Status> actual = bookingStorage.findStatusesByIdInAndOwnerId(ids, ownerId).stream()
+                .collect(Collectors.toMap(BookingStatusView::getId, BookingStatusView::getStatus));
+        for (Long id : ids) {
+            if (!actual.containsKey(id)) {
+                results.get(id).setOutcome(BookingDecisionResult.Outcome.NOT_FOUND);
+            } else if (actual.get(id) != status) {
+                log.debug("Статус брони с id={} изменен параллельным запросом на {}", id, actual.get(id));
+                results.get(id).setOutcome(BookingDecisionResult.Outcome.CONFLICT);
+            }
+        }
+    }
+
+    private static Status decidedStatus(BookingDecisionResult.Outcome outcome) {
+        switch (outcome) {
+            case APPROVED:
+                return Status.APPROVED;
+            case REJECTED:
+                return Status.REJECTED;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Подтверждение проверяется по подтвержденным броням вещи, включая подтвержденные ранее в этом же пакете,
+     * даже если бронь уже активна: ожидающие брони из БД до проверки пересечений могут пересекаться.
+     */
+    private BookingDecisionResult.Outcome decide(BookingStatusView booking, boolean approved) {
+        boolean active = BookingAvailabilityIndex.ACTIVE_STATUSES.contains(booking.getStatus());
+        if (!approved) {
+            if (active) {
+                availabilityIndex.remove(booking.getItemId(), booking.getId());
+            }
+            return BookingDecisionResult.Outcome.REJECTED;
+        }
+        if (booking.getStatus() == Status.APPROVED) {
+            return BookingDecisionResult.Outcome.ALREADY_APPROVED;
+        }
+        boolean free = active
+                ? availabilityIndex.isFreeOfApproved(booking.getItemId(), booking.getId(), booking.getStart(),
+                        booking.getEnd())
+                : availabilityIndex.isFree(booking.getItemId(), booking.getStart(), booking.getEnd());
+        if (!free) {
+            return BookingDecisionResult.Outcome.CONFLICT;
+        }
+        availabilityIndex.add(booking.getItemId(),
+                new BookingInterval(booking.getId(), booking.getStart(), booking.getEnd(), Status.APPROVED));
+        return BookingDecisionResult.Outcome.APPROVED;
+    }
+
+    @Transactional(readOnly = true)
+    @Override
     public List<BookingDto> getAllBookings(String state, Long userId, String typeUser, int from, int size) {
         log.info("Запрошен список пользователя с id={} и стейтом={}", userId, typeUser);
-        if (state == null) {
-            state = "ALL";
-        }
         if (size <= 0 || from < 0) {
             Log.andThrowNotValid("size и from должны быть больше 0"); ///////валид
         }
-        PageRequest pages = PageRequest.of(from > 0 ? from / size : 0, size);
-        List<Booking> list = getBookingsList(state, userId, typeUser, pages);
-        log.info("Получен список: {}", list);
+        List<BookingDto> list = bookingStorage.search(filter(state, userId, typeUser)
+                .offset(from / size * size)
+                .size(size)
+                .build());
+        log.debug("Получено {} броней", list.size());
         if (list.isEmpty()) {
             Log.andThrowNotFound("Бронирование не найдено");
         }
-        return list.stream()
-                .map(BookingMapper::toBookingDto)
-                .collect(Collectors.toList());
+        return list;
     }
 
-    private List<Booking> getBookingsList(String state, Long userId, String typeUser, Pageable pages) {
-        LocalDateTime time = LocalDateTime.now();
-        String criteria = typeUser + state;
-        switch (criteria) {
-            case "ownerALL":
-                return bookingStorage.findAllByOwnerIdOrderByStartDesc(userId, pages);
-            case "bookerALL":
-                return bookingStorage.findAllByBookerIdOrderByStartDesc(userId, pages);
-            case "ownerFUTURE":
-                return bookingStorage.findAllByOwnerIdAndStartAfterOrderByStartDesc(userId, time, pages);
-            case "bookerFUTURE":
-                return bookingStorage.findAllByBookerIdAndStartAfterOrderByStartDesc(userId, time, pages);
-            case "ownerWAITING":
-                return bookingStorage.findAllByOwnerIdAndStatusOrderByStartDesc(userId, Status.WAITING, pages);
-            case "bookerWAITING":
-                return bookingStorage.findAllByBookerIdAndStatusOrderByStartDesc(userId, Status.WAITING, pages);
-            case "ownerCURRENT":
-                return bookingStorage.findAllByOwnerIdAndStartBeforeAndEndAfterOrderByStartDesc(userId, time, time, pages);
-            case "bookerCURRENT":
-                return bookingStorage.findAllByBookerIdAndStartBeforeAndEndAfterOrderByStartDesc(userId, time, time, pages);
-            case "ownerPAST":
-                return bookingStorage.findAllByOwnerIdAndEndBeforeOrderByStartDesc(userId, time, pages);
-            case "bookerPAST":
-                return bookingStorage.findAllByBookerIdAndEndBeforeOrderByStartDesc(userId, time, pages);
-            case "ownerREJECTED":
-                return bookingStorage.findAllByOwnerIdAndStatusOrderByStartDesc(userId, Status.REJECTED, pages);
-            case "bookerREJECTED":
-                return bookingStorage.findAllByBookerIdAndStatusOrderByStartDesc(userId, Status.REJECTED, pages);
-            default:
-                throw new NotValidException("Unknown state: UNSUPPORTED_STATUS");
+    @Transactional(readOnly = true)
+    @Override
+    public List<BookingDto> getAllBookingsAfter(String state, Long userId, String typeUser, String cursor, int size) {
+        log.info("Запрошен список пользователя с id={} и стейтом={} после cursor={}", userId, typeUser, cursor);
+        if (size <= 0) {
+            Log.andThrowNotValid("size должен быть больше 0");
         }
+        return bookingStorage.search(filter(state, userId, typeUser)
+                .cursor(BookingCursor.decode(cursor))
+                .size(size)
+                .build());
     }
 
-    private void validateAddBooking(long bookerId, BookingDtoInput bookingDtoInput, Item item) {
+    @Transactional(readOnly = true)
+    @Override
+    public void exportBookings(String state, Long userId, String typeUser, Consumer<BookingDto> consumer) {
+        log.info("Запрошена выгрузка броней пользователя с id={} ({}) и стейтом={}", userId, typeUser, state);
+        try (Stream<BookingDto> bookings = bookingStorage.stream(filter(state, userId, typeUser).build())) {
+            bookings.forEach(consumer);
+        }
+    }
+
+    private BookingFilter.BookingFilterBuilder filter(String state, Long userId, String typeUser) {
+        return BookingFilter.builder()
+                .userId(userId)
+                .owner("owner".equals(typeUser))
+                .states(State.parse(state))
+                .time(LocalDateTime.now());
+    }
+
+    /**
+     * entry — префикс сообщения об ошибке, в пакете указывает индекс брони, для одиночной брони пустой.
+     */
+    private void validateAddBooking(String entry, long bookerId, BookingDtoInput bookingDtoInput, Item item) {
         if (isNotValidDate(bookingDtoInput.getStart(), bookingDtoInput.getEnd())) {
-            Log.andThrowNotValid("Даты бронирования выбраны некорректно." + bookingDtoInput);
+            Log.andThrowNotValid(entry + "Даты бронирования выбраны некорректно." + bookingDtoInput);
         }
         if (bookerId == item.getOwner().getId()) {
-            Log.andThrowNotFound("Владелец вещи не может бронировать свои вещи.");//
+            Log.andThrowNotFound(entry + "Владелец вещи не может бронировать свои вещи.");//
         }
         if (!item.getAvailable()) {
-            Log.andThrowNotValid(String.format("Вещь с id=%d не доступна для бронирования.", item.getId()));
+            Log.andThrowNotValid(entry + String.format("Вещь с id=%d не доступна для бронирования.", item.getId()));
+        }
+    }
+
+    private static String batchEntry(int index) {
+        return String.format("Бронь пакета с индексом %d: ", index);
+    }
+
+    private Optional<Booking> lockAndReleaseReplaced(Long itemId, Long bookingId) {
+        Optional<Booking> replaced = bookingId == null ? Optional.empty() : bookingStorage.findById(bookingId);
+        if (replaced.isEmpty()) {
+            availabilityIndex.lockItem(itemId);
+            return replaced;
+        }
+        availabilityIndex.lockItems(List.of(itemId, replaced.get().getItem().getId()));
+        availabilityIndex.remove(replaced.get());
+        return replaced;
+    }
+
+    private void validateItemIsFree(String entry, Long itemId, LocalDateTime start, LocalDateTime end) {
+        if (!availabilityIndex.isFree(itemId, start, end)) {
+            Log.andThrowNotValid(entry + String.format("Вещь с id=%d уже забронирована на выбранные даты.", itemId));
+        }
+    }
+
+    private void validateItemIsFreeOfApproved(Booking booking) {
+        if (!availabilityIndex.isFreeOfApproved(booking.getItem().getId(), booking.getId(), booking.getStart(),
+                booking.getEnd())) {
+            Log.andThrowNotValid(String.format("На выбранные даты у вещи с id=%d уже есть подтвержденная бронь.",
+                    booking.getItem().getId()));
         }
     }
 
+    private void validateBatchIsFree(List<Booking> bookings) {
+        Map<Long, List<Integer>> byItem = IntStream.range(0, bookings.size()).boxed()
+                .sorted(Comparator.comparing(index -> bookings.get(index).getStart()))
+                .collect(Collectors.groupingBy(index -> bookings.get(index).getItem().getId()));
+        byItem.forEach((itemId, indexes) -> {
+            Booking previous = null;
+            Integer previousIndex = null;
+            for (Integer index : indexes) {
+                Booking booking = bookings.get(index);
+                if (previous != null && previous.getEnd().isAfter(booking.getStart())) {
+                    Log.andThrowNotValid(String.format("Брони пакета с индексами %d и %d на вещь с id=%d пересекаются.",
+                            previousIndex, index, itemId));
+                }
+                validateItemIsFree(batchEntry(index), itemId, booking.getStart(), booking.getEnd());
+                previous = booking;
+                previousIndex = index;
+            }
+        });
+    }
+
     private boolean isNotValidDate(LocalDateTime start, LocalDateTime end) {
         LocalDateTime now = LocalDateTime.now();
         return start.isBefore(now) || end.isBefore(now) || end.isBefore(start) || start.equals(end);
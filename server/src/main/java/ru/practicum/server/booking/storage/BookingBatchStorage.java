@@ -0,0 +1,10 @@
+package ru.practicum.server.booking.storage;
+
+import ru.practicum.server.booking.model.Booking;
+
+import java.util.List;
+
+public interface BookingBatchStorage {
+
+    void insertAll(List<Booking> bookings);
+}
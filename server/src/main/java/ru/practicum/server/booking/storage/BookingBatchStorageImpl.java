@@ -0,0 +1,52 @@
+package ru.practicum.server.booking.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.server.booking.model.Booking;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Вставка пакета броней одним JDBC batch в соединении текущей транзакции.
+ * IDENTITY-ключи отключают batch-вставку в Hibernate, поэтому ключи читаются из getGeneratedKeys
+ * и проставляются в переданные брони. Вставленные брони не попадают в persistence context.
+ */
+@RequiredArgsConstructor
+public class BookingBatchStorageImpl implements BookingBatchStorage {
+    private static final String INSERT = "INSERT INTO bookings (item_id, start_date, end_date, booker_id, status) "
+            + "VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertAll(List<Booking> bookings) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT, new String[]{"booking_id"})) {
+                for (Booking booking : bookings) {
+                    statement.setLong(1, booking.getItem().getId());
+                    statement.setTimestamp(2, Timestamp.valueOf(booking.getStart()));
+                    statement.setTimestamp(3, Timestamp.valueOf(booking.getEnd()));
+                    statement.setLong(4, booking.getBooker().getId());
+                    statement.setString(5, booking.getStatus().name());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (Booking booking : bookings) {
+                        if (!keys.next()) {
+                            throw new DataRetrievalFailureException("Драйвер вернул меньше ключей, чем вставлено броней: "
+                                    + bookings.size());
+                        }
+                        booking.setId(keys.getLong(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,21 @@
+package ru.practicum.server.booking.storage;
+
+import lombok.Builder;
+import lombok.Data;
+import ru.practicum.server.booking.dto.BookingCursor;
+import ru.practicum.server.booking.model.State;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+@Data
+@Builder
+public class BookingFilter {
+    private Long userId;
+    private boolean owner;
+    private Set<State> states;
+    private LocalDateTime time;
+    private BookingCursor cursor;
+    private int offset;
+    private int size;
+}
@@ -0,0 +1,17 @@
+package ru.practicum.server.booking.storage;
+
+import ru.practicum.server.booking.dto.BookingDto;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface BookingSearchStorage {
+
+    List<BookingDto> search(BookingFilter filter);
+
+    /**
+     * Все брони по фильтру без пагинации, строки читаются курсором по мере обхода. Поток нужно закрыть
+     * внутри транзакции.
+     */
+    Stream<BookingDto> stream(BookingFilter filter);
+}
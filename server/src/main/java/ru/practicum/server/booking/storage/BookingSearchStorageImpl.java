@@ -0,0 +1,115 @@
+package ru.practicum.server.booking.storage;
+
+import org.hibernate.jpa.QueryHints;
+import ru.practicum.server.booking.dto.BookingCursor;
+import ru.practicum.server.booking.dto.BookingDto;
+import ru.practicum.server.booking.dto.BookingMapper;
+import ru.practicum.server.booking.dto.BookingRow;
+import ru.practicum.server.booking.model.Booking;
+import ru.practicum.server.booking.model.State;
+import ru.practicum.server.booking.model.Status;
+import ru.practicum.server.item.model.Item;
+import ru.practicum.server.user.model.User;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Единый запрос списка броней: предикат собирается из роли пользователя, набора стейтов и курсора,
+ * результат выбирается плоскими {@link BookingRow} без сущностей в порядке (start DESC, id DESC).
+ */
+public class BookingSearchStorageImpl implements BookingSearchStorage {
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<BookingDto> search(BookingFilter filter) {
+        return query(filter)
+                .setFirstResult(filter.getOffset())
+                .setMaxResults(filter.getSize())
+                .getResultStream()
+                .map(BookingMapper::toBookingDto)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Stream<BookingDto> stream(BookingFilter filter) {
+        // getResultStream в Hibernate идет через ScrollableResults FORWARD_ONLY, fetch size не дает драйверу
+        // вычитать весь результат в память, а проекции не копятся в persistence context
+        return query(filter)
+                .setHint(QueryHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .getResultStream()
+                .map(BookingMapper::toBookingDto);
+    }
+
+    private TypedQuery<BookingRow> query(BookingFilter filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookingRow> query = cb.createQuery(BookingRow.class);
+        Root<Booking> booking = query.from(Booking.class);
+        Join<Booking, Item> item = booking.join("item");
+        Join<Item, User> owner = item.join("owner");
+        Join<Booking, User> booker = booking.join("booker");
+        Path<LocalDateTime> start = booking.get("start");
+        Path<Long> id = booking.get("id");
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.isOwner()) {
+            predicates.add(cb.equal(owner.get("id"), filter.getUserId()));
+        } else {
+            predicates.add(cb.equal(booker.get("id"), filter.getUserId()));
+        }
+        if (!filter.getStates().contains(State.ALL)) {
+            predicates.add(cb.or(filter.getStates().stream()
+                    .map(state -> statePredicate(cb, booking, state, filter.getTime()))
+                    .toArray(Predicate[]::new)));
+        }
+        BookingCursor cursor = filter.getCursor();
+        if (cursor != null) {
+            // start <= ? отдельным условием, чтобы seek шел по диапазону индекса, а не фильтром по OR
+            predicates.add(cb.lessThanOrEqualTo(start, cursor.getStart()));
+            predicates.add(cb.or(cb.lessThan(start, cursor.getStart()), cb.lessThan(id, cursor.getId())));
+        }
+        query.select(cb.construct(BookingRow.class,
+                        id, start, booking.get("end"), booking.get("status"),
+                        item.get("id"), item.get("name"), item.get("description"), item.get("available"),
+                        item.get("requestId"),
+                        owner.get("id"), owner.get("name"), owner.get("email"),
+                        booker.get("id"), booker.get("name"), booker.get("email")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(start), cb.desc(id));
+        return entityManager.createQuery(query);
+    }
+
+    private Predicate statePredicate(CriteriaBuilder cb, Root<Booking> booking, State state, LocalDateTime time) {
+        Path<LocalDateTime> start = booking.get("start");
+        Path<LocalDateTime> end = booking.get("end");
+        switch (state) {
+            case FUTURE:
+                return cb.greaterThan(start, time);
+            case CURRENT:
+                return cb.and(cb.lessThan(start, time), cb.greaterThan(end, time));
+            case PAST:
+                return cb.lessThan(end, time);
+            case WAITING:
+                return cb.equal(booking.get("status"), Status.WAITING);
+            case REJECTED:
+                return cb.equal(booking.get("status"), Status.REJECTED);
+            default:
+                return cb.conjunction();
+        }
+    }
+}
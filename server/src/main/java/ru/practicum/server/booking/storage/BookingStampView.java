@@ -0,0 +1,14 @@
+package ru.practicum.server.booking.storage;
+
+/**
+ * Версии брони и всего, что попадает в ее ответ, из них строится ETag брони.
+ */
+public interface BookingStampView {
+    long getBookingVersion();
+
+    long getItemVersion();
+
+    long getOwnerVersion();
+
+    long getBookerVersion();
+}
@@ -0,0 +1,19 @@
+package ru.practicum.server.booking.storage;
+
+import ru.practicum.server.booking.model.Status;
+
+import java.time.LocalDateTime;
+
+public interface BookingStatusView {
+    Long getId();
+
+    Long getItemId();
+
+    Long getBookerId();
+
+    LocalDateTime getStart();
+
+    LocalDateTime getEnd();
+
+    Status getStatus();
+}
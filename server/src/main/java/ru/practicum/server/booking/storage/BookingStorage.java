@@ -1,84 +1,72 @@
 package ru.practicum.server.booking.storage;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.domain.Pageable;
+import ru.practicum.server.booking.availability.BookingInterval;
+import ru.practicum.server.booking.dto.BookingRow;
 import ru.practicum.server.booking.model.Booking;
 import ru.practicum.server.booking.model.Status;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 
-public interface BookingStorage extends JpaRepository<Booking, Long> {
+public interface BookingStorage extends JpaRepository<Booking, Long>, BookingSearchStorage, BookingBatchStorage {
 
     @Query("SELECT b " +
             "FROM Booking AS b " +
-            "JOIN b.item AS i " +
+            "JOIN FETCH b.item AS i " +
+            "JOIN FETCH i.owner AS o " +
+            "JOIN FETCH b.booker " +
             "WHERE b.id = ?1 " +
-            "AND i.owner.id = ?2")
+            "AND o.id = ?2")
     Booking findBookingOwner(Long bookingId, Long ownerId);
 
-    @Query("SELECT b " +
+    @Query("SELECT new ru.practicum.server.booking.dto.BookingRow(b.id, b.start, b.end, b.status, " +
+            "i.id, i.name, i.description, i.available, i.requestId, o.id, o.name, o.email, u.id, u.name, u.email) " +
             "FROM Booking AS b " +
             "JOIN b.item AS i " +
+            "JOIN i.owner AS o " +
+            "JOIN b.booker AS u " +
             "WHERE b.id = ?1 " +
-            "AND (i.owner.id = ?2 OR b.booker.id = ?2)")
-    Booking findBookingOwnerOrBooker(Long bookingId, Long ownerId);
+            "AND (o.id = ?2 OR u.id = ?2)")
+    Optional<BookingRow> findRowByIdForOwnerOrBooker(Long bookingId, Long userId);
 
-    // ALL
-    @Query("SELECT b " +
+    @Query("SELECT b.version AS bookingVersion, i.version AS itemVersion, o.version AS ownerVersion, " +
+            "u.version AS bookerVersion " +
             "FROM Booking AS b " +
             "JOIN b.item AS i " +
-            "WHERE i.owner.id = ?1 " +
-            "ORDER BY b.start DESC ")
-    List<Booking> findAllByOwnerIdOrderByStartDesc(Long bookerId, Pageable pages);
-
-    List<Booking> findAllByBookerIdOrderByStartDesc(Long bookerId, Pageable pages);
+            "JOIN i.owner AS o " +
+            "JOIN b.booker AS u " +
+            "WHERE b.id = ?1 " +
+            "AND (o.id = ?2 OR u.id = ?2)")
+    Optional<BookingStampView> findStampByIdForOwnerOrBooker(Long bookingId, Long userId);
 
-    // FUTURE
-    @Query("SELECT b " +
+    @Query("SELECT b.id AS id, i.id AS itemId, b.booker.id AS bookerId, b.start AS start, b.end AS end, " +
+            "b.status AS status " +
             "FROM Booking AS b " +
             "JOIN b.item AS i " +
-            "WHERE i.owner.id = ?1 " +
-            "AND b.start > ?2 " +
-            "ORDER BY b.start DESC ")
-    List<Booking> findAllByOwnerIdAndStartAfterOrderByStartDesc(Long bookerId, LocalDateTime time, Pageable pages);
-
-    List<Booking> findAllByBookerIdAndStartAfterOrderByStartDesc(Long bookerId, LocalDateTime time, Pageable pages);
+            "WHERE b.id IN (?1) " +
+            "AND i.owner.id = ?2")
+    List<BookingStatusView> findStatusesByIdInAndOwnerId(Collection<Long> bookingIds, Long ownerId);
 
-    // WAITING and REJECTED
-    @Query("SELECT b " +
-            "FROM Booking AS b " +
-            "JOIN b.item AS i " +
-            "WHERE i.owner.id = ?1 " +
+    @Modifying
+    @Query("UPDATE Booking AS b " +
+            "SET b.status = ?3, b.version = b.version + 1 " +
+            "WHERE b.id IN (?1) " +
             "AND b.status = ?2 " +
-            "ORDER BY b.start DESC ")
-    List<Booking> findAllByOwnerIdAndStatusOrderByStartDesc(Long bookerId, Status status, Pageable pages);
-
-    List<Booking> findAllByBookerIdAndStatusOrderByStartDesc(Long bookerId, Status status, Pageable pages);
+            "AND b.item.id IN (SELECT i.id FROM Item AS i WHERE i.owner.id = ?4)")
+    int updateStatuses(Collection<Long> bookingIds, Status current, Status status, Long ownerId);
 
-    // CURRENT
-    @Query("SELECT b " +
-            "FROM Booking AS b " +
-            "JOIN b.item AS i " +
-            "WHERE i.owner.id = ?1 " +
-            "AND b.start < ?2 AND b.end > ?2 " +
-            "ORDER BY b.start DESC ")
-    List<Booking> findAllByOwnerIdAndStartBeforeAndEndAfterOrderByStartDesc(Long bookerId, LocalDateTime time, LocalDateTime time2, Pageable pages);
-
-    List<Booking> findAllByBookerIdAndStartBeforeAndEndAfterOrderByStartDesc(Long bookerId, LocalDateTime time, LocalDateTime time2, Pageable pages);
-
-    // PAST
-    @Query("SELECT b " +
-            "FROM Booking AS b " +
-            "JOIN b.item AS i " +
-            "WHERE i.owner.id = ?1 " +
-            "AND b.end < ?2 " +
-            "ORDER BY b.start DESC ")
-    List<Booking> findAllByOwnerIdAndEndBeforeOrderByStartDesc(Long bookerId, LocalDateTime time, Pageable pages);
-
-    List<Booking> findAllByBookerIdAndEndBeforeOrderByStartDesc(Long bookerId, LocalDateTime time, Pageable pages);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Booking AS b " +
+            "SET b.status = ?3, b.version = b.version + 1 " +
+            "WHERE b.id = ?1 " +
+            "AND b.status = ?2")
+    int updateStatusIfCurrent(Long bookingId, Status current, Status status);
 
     @Query("SELECT b " +
             "FROM Booking AS b " +
@@ -91,11 +79,25 @@ public interface BookingStorage extends JpaRepository<Booking, Long> {
     @Query("SELECT b " +
             "FROM Booking AS b " +
             "JOIN b.item AS i " +
-            "WHERE  i.owner.id = ?1 " +
-            "AND i.id IN (?2) ")
-    List<Booking> findAllByOwnerIdAndItemIn(Long ownerId, List<Long> items);
+            "WHERE i.id IN (?1) " +
+            "AND b.status = ru.practicum.server.booking.model.Status.APPROVED " +
+            "AND (b.id = (SELECT MAX(l.id) FROM Booking AS l " +
+            "             WHERE l.item = b.item " +
+            "             AND l.status = ru.practicum.server.booking.model.Status.APPROVED " +
+            "             AND ((l.start < ?2 AND l.end > ?2) OR l.end < ?2)) " +
+            "  OR b.start = (SELECT MIN(n.start) FROM Booking AS n " +
+            "                WHERE n.item = b.item " +
+            "                AND n.status = ru.practicum.server.booking.model.Status.APPROVED " +
+            "                AND n.start > ?2))")
+    List<Booking> findLastAndNextByItemIn(Collection<Long> items, LocalDateTime time);
 
     List<Booking> findAllByBookerIdAndItemIdAndStatusNotAndStartBefore(Long bookerId, Long itemId, Status status, LocalDateTime time);
 
-}
+    @Query("SELECT new ru.practicum.server.booking.availability.BookingInterval(b.id, b.start, b.end, b.status) " +
+            "FROM Booking AS b " +
+            "WHERE b.item.id = ?1 " +
+            "AND b.status IN (?2) " +
+            "AND b.end > ?3")
+    List<BookingInterval> findIntervalsByItemId(Long itemId, Collection<Status> statuses, LocalDateTime time);
 
+}
@@ -1,18 +1,28 @@
 package ru.practicum.server.item;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.server.item.dto.ItemDto;
 import ru.practicum.server.item.dto.CommentDto;
+import ru.practicum.server.item.dto.ItemAvailabilityDto;
 import ru.practicum.server.item.dto.ItemResponseDto;
 import ru.practicum.server.item.service.ItemService;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/items")
@@ -21,6 +31,7 @@ import java.util.List;
 public class ItemController {
     private static final String HEADER = "X-Sharer-User-Id";
     private final ItemService itemService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping()
     public ItemDto createItem(@RequestHeader(HEADER) Long userId,
@@ -29,19 +40,57 @@ public class ItemController {
     }
 
     @GetMapping("/{itemId}")
-    public ItemResponseDto getItem(@PathVariable Long itemId, @RequestHeader(HEADER) @NotNull Long userId) {
+    public ItemResponseDto getItem(@PathVariable Long itemId, @RequestHeader(HEADER) @NotNull Long userId,
+                                   WebRequest request) {
+        // при совпадении If-None-Match отвечаем 304 без сборки карточки
+        if (itemService.getItemETag(itemId, userId).map(request::checkNotModified).orElse(false)) {
+            return null;
+        }
         return itemService.getItemById(itemId, userId);
     }
 
+    @GetMapping("/{itemId}/availability")
+    public ItemAvailabilityDto getAvailability(@PathVariable Long itemId,
+                                               @RequestParam(required = false)
+                                               @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                               @RequestParam(required = false)
+                                               @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return itemService.getAvailability(itemId, from, to);
+    }
+
     @PatchMapping("/{itemId}")
     public ItemDto updateItem(@RequestHeader(HEADER) Long userId, @PathVariable Long itemId,
                               @RequestBody ItemDto itemDto) {
         return itemService.updateItem(userId, itemId, itemDto);
     }
 
+    /**
+     * Без from и size поиск, как и раньше, отдает все совпадения. Без size — все совпадения начиная с from.
+     */
     @GetMapping("/search")
-    public Collection<ItemDto> searchItems(@RequestParam(name = "text") String text) {
-        return itemService.searchItemsByDescription(text);
+    public Collection<ItemDto> searchItems(@RequestParam(name = "text") String text,
+                                           @RequestParam(required = false) Integer from,
+                                           @RequestParam(required = false) Integer size) {
+        if (from == null && size == null) {
+            return itemService.searchItemsByDescription(text);
+        }
+        return itemService.searchItemsByDescription(text, from == null ? 0 : from,
+                size == null ? Integer.MAX_VALUE : size);
+    }
+
+    @GetMapping(value = "/search/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamItems(@RequestParam(name = "text") String text) {
+        Stream<ItemDto> items = itemService.streamItemsByDescription(text);
+        StreamingResponseBody body = out -> {
+            Iterator<ItemDto> iterator = items.iterator();
+            while (iterator.hasNext()) {
+                out.write(objectMapper.writeValueAsBytes(iterator.next()));
+                out.write('\n');
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     @DeleteMapping("/{itemId}")
@@ -50,7 +99,10 @@ public class ItemController {
     }
 
     @GetMapping()
-    public List<ItemResponseDto> findAll(@RequestHeader(HEADER) Long userId) {
+    public List<ItemResponseDto> findAll(@RequestHeader(HEADER) Long userId, WebRequest request) {
+        if (itemService.getItemsETag(userId).map(request::checkNotModified).orElse(false)) {
+            return null;
+        }
         return itemService.getAllItemsByUserId(userId);
     }
 
@@ -0,0 +1,67 @@
+package ru.practicum.server.item.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.server.item.model.Item;
+import ru.practicum.server.item.storage.ItemStorage;
+import ru.practicum.server.user.model.User;
+
+import java.util.Optional;
+
+/**
+ * Кэш вещей по id поверх {@link CacheManager}: бэкенд, размер и TTL задаются настройками spring.cache.
+ * Хранит и отдает копии, чтобы изменения сущности вызывающим кодом не попадали в кэш.
+ * Сброс повторяется после коммита, чтобы чтение из параллельной транзакции не вернуло старую версию в кэш.
+ */
+@Slf4j
+@Component
+public class ItemCache {
+    public static final String NAME = "items";
+
+    private final Cache cache;
+    private final ItemStorage itemStorage;
+
+    public ItemCache(CacheManager cacheManager, ItemStorage itemStorage) {
+        this.cache = cacheManager.getCache(NAME);
+        this.itemStorage = itemStorage;
+    }
+
+    public Optional<Item> get(Long id) {
+        Item cached = cache.get(id, Item.class);
+        if (cached != null) {
+            return Optional.of(copy(cached));
+        }
+        Optional<Item> item = itemStorage.findWithOwnerById(id);
+        item.ifPresent(i -> cache.put(id, copy(i)));
+        return item;
+    }
+
+    public void evict(Long id) {
+        cache.evict(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.evict(id);
+                }
+            });
+        }
+    }
+
+    public void evictByOwner(Long ownerId) {
+        itemStorage.findIdsByOwnerId(ownerId).forEach(this::evict);
+        log.debug("Сброшен кэш вещей владельца с id={}", ownerId);
+    }
+
+    private static Item copy(Item item) {
+        User owner = item.getOwner() == null ? null
+                : new User(item.getOwner().getId(), item.getOwner().getName(), item.getOwner().getEmail(),
+                        item.getOwner().getVersion());
+        return new Item(item.getId(), item.getName(), item.getDescription(), owner, item.getAvailable(),
+                item.getRequestId(), item.getVersion());
+    }
+}
@@ -3,15 +3,12 @@ package ru.practicum.server.item.dto;
 import lombok.experimental.UtilityClass;
 import ru.practicum.server.booking.dto.BookingDtoSpecial;
 import ru.practicum.server.booking.dto.BookingMapper;
-import ru.practicum.server.booking.model.Booking;
-import ru.practicum.server.booking.model.Status;
+import ru.practicum.server.booking.pointer.ItemBookingPointer;
 import ru.practicum.server.item.model.Comment;
 import ru.practicum.server.item.model.Item;
 import ru.practicum.server.user.model.User;
 
 import java.time.LocalDateTime;
-import java.util.Optional;
-import java.util.Comparator;
 import java.util.List;
 
 @UtilityClass
@@ -43,31 +40,7 @@ public class ItemMapper {
         return item;
     }
 
-    public static ItemResponseDto toItemResponseDto(Item item, List<Booking> booking, List<Comment> comments) {
-        BookingDtoSpecial bookingLast = null;
-        BookingDtoSpecial bookingNext = null;
-        LocalDateTime time = LocalDateTime.now();
-
-        if (!booking.isEmpty()) {
-            Optional<Booking> bookingLastOld = booking.stream()
-                    .filter(b -> (b.getItem().getId().equals(item.getId()) && b.getStatus().equals(Status.APPROVED)))
-                    .filter(b -> (b.getStart().isBefore(time) && b.getEnd().isAfter(time)) || b.getEnd().isBefore(time))
-                    .sorted(Comparator.comparing(Booking::getId).reversed())
-                    .findFirst();
-
-            Optional<Booking> bookingNextOld = booking.stream()
-                    .filter(b -> b.getItem().getId().equals(item.getId()) && b.getStatus().equals(Status.APPROVED))
-                    .sorted(Comparator.comparing(Booking::getStart))
-                    .filter(b -> b.getStart().isAfter(time))
-                    .findFirst();
-            if (bookingLastOld.isPresent()) {
-                bookingLast = BookingMapper.toBookingDtoForItem(bookingLastOld.get());
-            }
-            if (bookingNextOld.isPresent()) {
-                bookingNext = BookingMapper.toBookingDtoForItem(bookingNextOld.get());
-            }
-
-        }
+    public static ItemResponseDto toItemResponseDto(Item item, ItemBookingPointer pointer, List<Comment> comments) {
         return ItemResponseDto
                 .builder()
                 .id(item.getId())
@@ -75,8 +48,8 @@ public class ItemMapper {
                 .description(item.getDescription())
                 .owner(item.getOwner())
                 .available(item.getAvailable())
-                .lastBooking(bookingLast)
-                .nextBooking(bookingNext)
+                .lastBooking(pointer == null ? null : BookingMapper.toBookingDtoForItem(pointer.getLast()))
+                .nextBooking(pointer == null ? null : BookingMapper.toBookingDtoForItem(pointer.getNext()))
                 .comments(comments)
                 .requestId(item.getRequestId())
                 .build();
@@ -1,5 +1,6 @@
 package ru.practicum.server.item.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -21,13 +22,21 @@ public class Comment {
     private Long id;
     @Column(name = "text")
     private String text;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "item_id", referencedColumnName = "item_id")
     private Item item;
     @Column(name = "author_name")
     private String authorName;
     @Column(name = "created")
     private LocalDateTime created;
+    @Version
+    @JsonIgnore
+    @Column(name = "version")
+    private long version;
+
+    public Comment(Long id, String text, Item item, String authorName, LocalDateTime created) {
+        this(id, text, item, authorName, created, 0);
+    }
 
     // for tests
     public Comment(String text) {
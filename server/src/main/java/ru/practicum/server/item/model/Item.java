@@ -1,5 +1,6 @@
 package ru.practicum.server.item.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
 import ru.practicum.server.user.model.User;
 
@@ -23,7 +24,7 @@ public class Item {
     @Column(name = "description")
     @NotBlank(message = "Описание не может быть пустым")
     private String description;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", referencedColumnName = "user_id")
     @ToString.Exclude
     private User owner;
@@ -32,4 +33,12 @@ public class Item {
     private Boolean available;
     @Column(name = "request")
     private Long requestId;
+    @Version
+    @JsonIgnore
+    @Column(name = "version")
+    private long version;
+
+    public Item(Long id, String name, String description, User owner, Boolean available, Long requestId) {
+        this(id, name, description, owner, available, requestId, 0);
+    }
 }
\ No newline at end of file
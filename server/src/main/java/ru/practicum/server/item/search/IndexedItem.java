@@ -0,0 +1,37 @@
+package ru.practicum.server.item.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.practicum.server.item.model.Item;
+
+import java.util.Locale;
+
+@Data
+@AllArgsConstructor
+class IndexedItem {
+    private Long id;
+    private Long ownerId;
+    private String name;
+    private String description;
+    private Boolean available;
+    private Long requestId;
+    private String nameLower;
+    private String descriptionLower;
+    private long version;
+
+    static IndexedItem of(Item item) {
+        return new IndexedItem(item.getId(),
+                item.getOwner() == null ? null : item.getOwner().getId(),
+                item.getName(),
+                item.getDescription(),
+                item.getAvailable(),
+                item.getRequestId(),
+                lower(item.getName()),
+                lower(item.getDescription()),
+                item.getVersion());
+    }
+
+    static String lower(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,355 @@
+package ru.practicum.server.item.search;
+
+import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.server.item.dto.ItemDto;
+import ru.practicum.server.item.model.Item;
+import ru.practicum.server.item.storage.ItemStorage;
+import ru.practicum.server.user.model.User;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Инвертированный индекс по n-граммам (1..3 символа) названия и описания вещей.
+ * Строится из БД при старте и обновляется слушателями Hibernate на любом сохранении или удалении вещи.
+ * Изменения копятся в транзакции и попадают в индекс только после коммита, откат их просто отбрасывает.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemSearchIndex {
+    private static final int GRAM = 3;
+    private static final Comparator<RankedItem> RANKING = Comparator.<RankedItem>comparingInt(r -> r.field)
+            .thenComparingInt(r -> r.position)
+            .thenComparing(r -> r.item.getId());
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ItemStorage itemStorage;
+    private final Map<Long, IndexedItem> items = new HashMap<>();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    /**
+     * Изменения, закоммиченные во время перестроения: снимок из БД мог их не увидеть.
+     */
+    private List<Runnable> journal;
+
+    @PostConstruct
+    void registerListeners() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImpl.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        ChangeListener listener = new ChangeListener();
+        registry.appendListeners(EventType.POST_INSERT, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+    }
+
+    /**
+     * Коммиты во время чтения снимка записываются в журнал и повторяются поверх снимка,
+     * версия вещи не дает старому снимку затереть более новое состояние.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        setJournal(new ArrayList<>());
+        List<Item> all;
+        try {
+            all = itemStorage.findAll();
+        } catch (RuntimeException e) {
+            setJournal(null);
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            items.clear();
+            postings.clear();
+            all.forEach(item -> put(IndexedItem.of(item)));
+            journal.forEach(Runnable::run);
+            journal = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Поисковый индекс вещей построен, вещей: {}", all.size());
+    }
+
+    public List<ItemDto> search(String text) {
+        return stream(text).collect(Collectors.toList());
+    }
+
+    /**
+     * Страница результатов: держим в куче только лучшие from + size совпадений вместо сортировки всех.
+     */
+    public List<ItemDto> search(String text, int from, int size) {
+        String textLower = IndexedItem.lower(text);
+        if (textLower.isEmpty()) {
+            return new ArrayList<>();
+        }
+        int limit = (int) Math.min((long) from + size, Integer.MAX_VALUE);
+        PriorityQueue<RankedItem> top = new PriorityQueue<>(RANKING.reversed());
+        lock.readLock().lock();
+        try {
+            for (Long id : candidates(textLower)) {
+                RankedItem ranked = RankedItem.of(items.get(id), textLower);
+                if (ranked != null) {
+                    top.add(ranked);
+                    if (top.size() > limit) {
+                        top.poll();
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<RankedItem> page = new ArrayList<>(top);
+        page.sort(RANKING);
+        return page.stream()
+                .skip(from)
+                .map(ranked -> toItemDto(ranked.item))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Все совпадения по релевантности. Под блокировкой собираются только ссылки на записи индекса,
+     * ItemDto создаются по мере чтения потока.
+     */
+    public Stream<ItemDto> stream(String text) {
+        String textLower = IndexedItem.lower(text);
+        if (textLower.isEmpty()) {
+            return Stream.empty();
+        }
+        List<RankedItem> ranked = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Long id : candidates(textLower)) {
+                RankedItem item = RankedItem.of(items.get(id), textLower);
+                if (item != null) {
+                    ranked.add(item);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        ranked.sort(RANKING);
+        return ranked.stream().map(item -> toItemDto(item.item));
+    }
+
+    private Set<Long> candidates(String textLower) {
+        Set<Long> smallest = null;
+        for (String gram : grams(textLower, Math.min(GRAM, textLower.length()))) {
+            Set<Long> posting = postings.getOrDefault(gram, Collections.emptySet());
+            if (smallest == null || posting.size() < smallest.size()) {
+                smallest = posting;
+            }
+        }
+        return smallest == null ? Collections.emptySet() : smallest;
+    }
+
+    private void onChange(Long itemId, Item item) {
+        if (item == null) {
+            afterCommit(() -> remove(itemId));
+        } else {
+            IndexedItem indexed = IndexedItem.of(item);
+            afterCommit(() -> save(indexed));
+        }
+    }
+
+    private void onOwnerDeleted(Long ownerId) {
+        afterCommit(() -> items.values().stream()
+                .filter(item -> ownerId.equals(item.getOwnerId()))
+                .map(IndexedItem::getId)
+                .collect(Collectors.toList())
+                .forEach(this::remove));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(List.of(change));
+            return;
+        }
+        List<Runnable> pending = (List<Runnable>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<Runnable> created = new ArrayList<>();
+            pending = created;
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(created);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ItemSearchIndex.this);
+                }
+            });
+        }
+        pending.add(change);
+    }
+
+    private void apply(List<Runnable> changes) {
+        lock.writeLock().lock();
+        try {
+            if (journal != null) {
+                journal.addAll(changes);
+            }
+            changes.forEach(Runnable::run);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void setJournal(List<Runnable> journal) {
+        lock.writeLock().lock();
+        try {
+            this.journal = journal;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Хуки двух транзакций могут выполниться не в порядке их коммитов, поэтому более старая версия пропускается.
+     */
+    private void save(IndexedItem item) {
+        IndexedItem current = items.get(item.getId());
+        if (current != null && current.getVersion() > item.getVersion()) {
+            return;
+        }
+        remove(item.getId());
+        put(item);
+    }
+
+    private void put(IndexedItem item) {
+        items.put(item.getId(), item);
+        for (String gram : itemGrams(item)) {
+            postings.computeIfAbsent(gram, g -> new HashSet<>()).add(item.getId());
+        }
+    }
+
+    private void remove(Long itemId) {
+        IndexedItem item = items.remove(itemId);
+        if (item == null) {
+            return;
+        }
+        for (String gram : itemGrams(item)) {
+            Set<Long> posting = postings.get(gram);
+            if (posting != null) {
+                posting.remove(itemId);
+                if (posting.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static Set<String> itemGrams(IndexedItem item) {
+        Set<String> grams = new HashSet<>();
+        for (int n = 1; n <= GRAM; n++) {
+            grams.addAll(grams(item.getNameLower(), n));
+            grams.addAll(grams(item.getDescriptionLower(), n));
+        }
+        return grams;
+    }
+
+    private static Set<String> grams(String text, int n) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + n <= text.length(); i++) {
+            grams.add(text.substring(i, i + n));
+        }
+        return grams;
+    }
+
+    private static ItemDto toItemDto(IndexedItem item) {
+        ItemDto itemDto = new ItemDto();
+        itemDto.setId(item.getId());
+        itemDto.setName(item.getName());
+        itemDto.setDescription(item.getDescription());
+        itemDto.setAvailable(item.getAvailable());
+        itemDto.setRequestId(item.getRequestId());
+        return itemDto;
+    }
+
+    /**
+     * Совпадение в названии важнее совпадения в описании, дальше решает позиция совпадения и id.
+     */
+    @AllArgsConstructor
+    private static class RankedItem {
+        private final IndexedItem item;
+        private final int field;
+        private final int position;
+
+        static RankedItem of(IndexedItem item, String textLower) {
+            if (!Boolean.TRUE.equals(item.getAvailable())) {
+                return null;
+            }
+            int position = item.getNameLower().indexOf(textLower);
+            if (position >= 0) {
+                return new RankedItem(item, 0, position);
+            }
+            position = item.getDescriptionLower().indexOf(textLower);
+            return position >= 0 ? new RankedItem(item, 1, position) : null;
+        }
+    }
+
+    private class ChangeListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            if (event.getEntity() instanceof Item) {
+                onChange((Long) event.getId(), (Item) event.getEntity());
+            }
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            if (event.getEntity() instanceof Item) {
+                onChange((Long) event.getId(), (Item) event.getEntity());
+            }
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            if (event.getEntity() instanceof Item) {
+                onChange((Long) event.getId(), null);
+            } else if (event.getEntity() instanceof User) {
+                // вещи удаляются каскадом в БД, Hibernate о них не сообщает
+                onOwnerDeleted((Long) event.getId());
+            }
+        }
+
+        // в Hibernate 5.6 метод устарел, но остается абстрактным в PostActionEventListener
+        @SuppressWarnings("deprecation")
+        @Override
+        public boolean requiresPostCommitHanding(EntityPersister persister) {
+            return false;
+        }
+    }
+}
@@ -1,21 +1,42 @@
 package ru.practicum.server.item.service;
 
 import ru.practicum.server.item.dto.CommentDto;
+import ru.practicum.server.item.dto.ItemAvailabilityDto;
 import ru.practicum.server.item.dto.ItemDto;
 import ru.practicum.server.item.dto.ItemResponseDto;
 import ru.practicum.server.item.model.Item;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ItemService {
 
     Item getById(Long id);
 
+    /**
+     * Найденные вещи по id, отсутствующих в результате нет.
+     */
+    Map<Long, Item> findByIds(Collection<Long> ids);
+
     ItemResponseDto getItemById(Long itemId, Long userId);
 
     List<ItemResponseDto> getAllItemsByUserId(Long userId);
 
+    /**
+     * ETag карточки вещи: версии вещи и владельца, комментарии и, для владельца, последняя и следующая брони.
+     * Пустой, если вещи нет.
+     */
+    Optional<String> getItemETag(Long itemId, Long userId);
+
+    /**
+     * ETag списка вещей владельца, пустой, если пользователя нет.
+     */
+    Optional<String> getItemsETag(Long userId);
+
     ItemDto addItem(Long ownerId, ItemDto itemDto);
 
     ItemDto updateItem(Long userId, Long itemId, ItemDto itemDto);
@@ -24,5 +45,14 @@ public interface ItemService {
 
     Collection<ItemDto> searchItemsByDescription(String keyword);
 
+    List<ItemDto> searchItemsByDescription(String keyword, int from, int size);
+
+    Stream<ItemDto> streamItemsByDescription(String keyword);
+
+    /**
+     * Занятые и свободные интервалы вещи в окне [from, to), прошедшее время в окно не входит.
+     */
+    ItemAvailabilityDto getAvailability(Long itemId, LocalDateTime from, LocalDateTime to);
+
     CommentDto addComment(Long bookerId, Long itemId, CommentDto commentDto);
 }
\ No newline at end of file
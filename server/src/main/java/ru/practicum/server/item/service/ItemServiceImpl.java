@@ -3,52 +3,81 @@ package ru.practicum.server.item.service;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import ru.practicum.server.booking.availability.BookingAvailabilityIndex;
+import ru.practicum.server.booking.availability.TimeSlot;
 import ru.practicum.server.booking.model.Booking;
 import ru.practicum.server.booking.model.Status;
+import ru.practicum.server.booking.pointer.ItemBookingPointer;
+import ru.practicum.server.booking.pointer.ItemBookingPointers;
 import ru.practicum.server.booking.storage.BookingStorage;
+import ru.practicum.server.item.cache.ItemCache;
 import ru.practicum.server.item.dto.CommentDto;
+import ru.practicum.server.item.dto.ItemAvailabilityDto;
 import ru.practicum.server.item.dto.ItemDto;
 import ru.practicum.server.item.dto.ItemMapper;
 import ru.practicum.server.item.dto.ItemResponseDto;
 import ru.practicum.server.item.model.Comment;
 import ru.practicum.server.item.model.Item;
+import ru.practicum.server.item.search.ItemSearchIndex;
 import ru.practicum.server.item.storage.CommentStorage;
+import ru.practicum.server.item.storage.ItemStampView;
 import ru.practicum.server.item.storage.ItemStorage;
+import ru.practicum.server.item.storage.ItemVersionView;
 import ru.practicum.server.user.model.User;
 import ru.practicum.server.user.service.UserService;
+import ru.practicum.server.user.storage.OwnerStampView;
+import ru.practicum.server.user.storage.UserStorage;
+import ru.practicum.server.util.ETag;
 import ru.practicum.server.util.Log;
 
 import javax.transaction.Transactional;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @AllArgsConstructor
 public class ItemServiceImpl implements ItemService {
+    private static final int AVAILABILITY_DAYS = 30;
+
     private final ItemStorage itemStorage;
     private final BookingStorage bookingStorage;
     private final CommentStorage commentStorage;
     private final UserService userService;
+    private final UserStorage userStorage;
+    private final ItemBookingPointers itemBookingPointers;
+    private final ItemCache itemCache;
+    private final ItemSearchIndex itemSearchIndex;
+    private final BookingAvailabilityIndex availabilityIndex;
 
     @Override
     public Item getById(Long id) {
-        Optional<Item> item = itemStorage.findById(id);
+        Optional<Item> item = itemCache.get(id);
         if (!item.isPresent()) {
             Log.andThrowNotFound(String.format("Не найден предмет с id=%s.", id));
         }
         return item.get();
     }
 
+    @Override
+    public Map<Long, Item> findByIds(Collection<Long> ids) {
+        return itemStorage.findAllByIdIn(ids).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+    }
+
     @Transactional
     @Override
     public ItemResponseDto getItemById(Long itemId, Long userId) {
         log.info("Запрошен предмет с id={}", itemId);
         Item item = getById(itemId);
-        List<Booking> booking = bookingStorage.findAllByItemIdAndOwnerId(itemId, userId);
+        ItemBookingPointer pointer = item.getOwner().getId().equals(userId)
+                ? itemBookingPointers.getForItems(List.of(itemId)).get(itemId)
+                : null;
         List<Comment> comment = commentStorage.findAllByItemId(itemId);
-        return ItemMapper.toItemResponseDto(item, booking, comment);
+        return ItemMapper.toItemResponseDto(item, pointer, comment);
     }
 
     @Transactional
@@ -60,17 +89,57 @@ public class ItemServiceImpl implements ItemService {
         List<Long> itemIdList = itemList.stream()
                 .map(Item::getId)
                 .collect(Collectors.toList());
-        List<Booking> booking = bookingStorage.findAllByOwnerIdAndItemIn(userId, itemIdList);
+        Map<Long, ItemBookingPointer> pointers = itemBookingPointers.getForItems(itemIdList);
         List<Comment> comment = commentStorage.findAllByAndAuthorName(user.getName());
         return itemList.stream()
-                .map(item -> ItemMapper.toItemResponseDto(item, booking, comment))
+                .map(item -> ItemMapper.toItemResponseDto(item, pointers.get(item.getId()), comment))
+                .collect(Collectors.toList());
+    }
+
+    @Transactional
+    @Override
+    public Optional<String> getItemETag(Long itemId, Long userId) {
+        Optional<ItemStampView> stamp = itemStorage.findStampById(itemId);
+        if (stamp.isEmpty()) {
+            return Optional.empty();
+        }
+        ItemStampView item = stamp.get();
+        ItemBookingPointer pointer = item.getOwnerId().equals(userId)
+                ? itemBookingPointers.getForItems(List.of(itemId)).get(itemId)
+                : null;
+        return Optional.of(ETag.of(itemId, item.getItemVersion(), item.getOwnerVersion(), item.getComments(),
+                item.getLastCommentId(), pointer));
+    }
+
+    @Transactional
+    @Override
+    public Optional<String> getItemsETag(Long userId) {
+        Optional<OwnerStampView> owner = userStorage.findOwnerStampById(userId);
+        if (owner.isEmpty()) {
+            return Optional.empty();
+        }
+        List<ItemVersionView> items = itemStorage.findVersionsByOwnerId(userId);
+        List<Long> itemIds = items.stream()
+                .map(ItemVersionView::getId)
                 .collect(Collectors.toList());
+        Map<Long, ItemBookingPointer> pointers = itemBookingPointers.getForItems(itemIds);
+        // комментарии в ответе несут свою вещь с владельцем, поэтому учитываются и их версии
+        String comments = commentStorage.findStampsByAuthorId(userId).stream()
+                .map(c -> c.getId() + ":" + c.getVersion() + ":" + c.getItemVersion() + ":" + c.getOwnerVersion())
+                .collect(Collectors.joining(","));
+        return Optional.of(ETag.of(userId, owner.get().getVersion(), comments,
+                items.stream()
+                        .map(i -> i.getId() + ":" + i.getVersion())
+                        .collect(Collectors.joining(",")),
+                itemIds.stream()
+                        .map(pointers::get)
+                        .collect(Collectors.toList())));
     }
 
     @Transactional
     @Override
     public ItemDto addItem(Long ownerId, ItemDto itemDto) {
-        User owner = userService.getById(ownerId);
+        User owner = userService.getReference(ownerId);
         Item item = ItemMapper.toItem(itemDto, owner);
         Item addedItem = itemStorage.save(item);
         log.info("Добавлен новый предмет: {}", addedItem);
@@ -80,10 +149,16 @@ public class ItemServiceImpl implements ItemService {
     @Transactional
     @Override
     public ItemDto updateItem(Long userId, Long itemId, ItemDto newItemDto) {
-        Item oldItem = getById(itemId);
+        // читаем из БД, а не из кэша: версия должна совпасть с той, что проверит UPDATE
+        Optional<Item> item = itemStorage.findWithOwnerById(itemId);
+        if (item.isEmpty()) {
+            Log.andThrowNotFound(String.format("Не найден предмет с id=%s.", itemId));
+        }
+        Item oldItem = item.get();
         validateItemOwner(oldItem, userId);
         checkAndSetFields(newItemDto, oldItem);
         Item updatedItem = itemStorage.save(oldItem);
+        itemCache.evict(itemId);
         log.debug("Обновлен предмет: {}", updatedItem);
         return ItemMapper.toItemDto(updatedItem);
     }
@@ -93,21 +168,56 @@ public class ItemServiceImpl implements ItemService {
     public void deleteItem(Long itemId) {
         Item item = getById(itemId);
         itemStorage.deleteById(item.getId());
+        itemCache.evict(itemId);
         log.debug("Удален предмет c id={}", itemId);
     }
 
-    @Transactional
     @Override
     public Collection<ItemDto> searchItemsByDescription(String text) {
         log.info("Запрошен список по описанию: {}", text);
-        if (text.isEmpty()) {
-            return new ArrayList<>();
+        return itemSearchIndex.search(text);
+    }
+
+    @Override
+    public List<ItemDto> searchItemsByDescription(String text, int from, int size) {
+        log.info("Запрошена страница поиска по описанию: {}, from={}, size={}", text, from, size);
+        if (size <= 0 || from < 0) {
+            Log.andThrowNotValid("size или from должен быть больше 0");
         }
-        List<Item> itemList = itemStorage.findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndAvailable(
-                text, text, true);
-        return itemList.stream()
-                .map(ItemMapper::toItemDto)
-                .collect(Collectors.toList());
+        return itemSearchIndex.search(text, from, size);
+    }
+
+    @Override
+    public Stream<ItemDto> streamItemsByDescription(String text) {
+        log.info("Запрошена выгрузка поиска по описанию: {}", text);
+        return itemSearchIndex.stream(text);
+    }
+
+    @Transactional
+    @Override
+    public ItemAvailabilityDto getAvailability(Long itemId, LocalDateTime from, LocalDateTime to) {
+        log.info("Запрошен календарь вещи с id={} с {} по {}", itemId, from, to);
+        getById(itemId);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime start = from == null || from.isBefore(now) ? now : from;
+        LocalDateTime end = to == null ? start.plusDays(AVAILABILITY_DAYS) : to;
+        if (!end.isAfter(start)) {
+            Log.andThrowNotValid("Окно календаря должно заканчиваться позже начала и текущего момента");
+        }
+        List<TimeSlot> busy = availabilityIndex.busyBetween(itemId, start, end);
+        // блоки уже слиты и отсортированы, свободные окна - промежутки между ними
+        List<TimeSlot> free = new ArrayList<>();
+        LocalDateTime freeStart = start;
+        for (TimeSlot slot : busy) {
+            if (slot.getStart().isAfter(freeStart)) {
+                free.add(new TimeSlot(freeStart, slot.getStart()));
+            }
+            freeStart = slot.getEnd();
+        }
+        if (end.isAfter(freeStart)) {
+            free.add(new TimeSlot(freeStart, end));
+        }
+        return new ItemAvailabilityDto(itemId, start, end, busy, free);
     }
 
     @Transactional
@@ -0,0 +1,14 @@
+package ru.practicum.server.item.storage;
+
+/**
+ * Версии комментария и вещи с владельцем, которые попадают в ответ вместе с ним.
+ */
+public interface CommentStampView {
+    Long getId();
+
+    long getVersion();
+
+    long getItemVersion();
+
+    long getOwnerVersion();
+}
@@ -1,12 +1,27 @@
 package ru.practicum.server.item.storage;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.server.item.model.Comment;
 
 import java.util.List;
 
 public interface CommentStorage extends JpaRepository<Comment, Long> {
+    @EntityGraph(attributePaths = {"item", "item.owner"})
+    @Query("SELECT c " +
+            "FROM Comment AS c " +
+            "WHERE c.item.id = ?1")
     List<Comment> findAllByItemId(long itemId);
 
+    @EntityGraph(attributePaths = {"item", "item.owner"})
     List<Comment> findAllByAndAuthorName(String author);
+
+    @Query("SELECT c.id AS id, c.version AS version, i.version AS itemVersion, o.version AS ownerVersion " +
+            "FROM Comment AS c " +
+            "JOIN c.item AS i " +
+            "JOIN i.owner AS o " +
+            "WHERE c.authorName = (SELECT u.name FROM User AS u WHERE u.id = ?1) " +
+            "ORDER BY c.id")
+    List<CommentStampView> findStampsByAuthorId(Long userId);
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package ru.practicum.server.item.storage;
+
+/**
+ * Версии вещи и владельца и отметка комментариев вещи, из них строится ETag карточки вещи.
+ */
+public interface ItemStampView {
+    long getItemVersion();
+
+    Long getOwnerId();
+
+    long getOwnerVersion();
+
+    long getComments();
+
+    Long getLastCommentId();
+}
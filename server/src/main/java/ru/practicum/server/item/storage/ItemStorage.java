@@ -2,18 +2,42 @@ package ru.practicum.server.item.storage;
 
 import ru.practicum.server.item.model.Item;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.server.user.model.User;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface ItemStorage extends JpaRepository<Item, Long> {
     List<Item> findAllByOwnerOrderById(User user);
 
-    List<Item> findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndAvailable(
-            String name, String description, Boolean available);
+    @Query("SELECT i.id FROM Item AS i WHERE i.owner.id = ?1")
+    List<Long> findIdsByOwnerId(Long ownerId);
 
-    List<Item> findAllByRequestIdIn(List<Long> requestsId);
+    @Query("SELECT i.id AS id, i.version AS version " +
+            "FROM Item AS i " +
+            "WHERE i.owner.id = ?1 " +
+            "ORDER BY i.id")
+    List<ItemVersionView> findVersionsByOwnerId(Long ownerId);
 
-    List<Item> findItemsByRequestId(long requestId);
+    @Query("SELECT i.version AS itemVersion, o.id AS ownerId, o.version AS ownerVersion, " +
+            "COUNT(c.id) AS comments, MAX(c.id) AS lastCommentId " +
+            "FROM Item AS i " +
+            "JOIN i.owner AS o " +
+            "LEFT JOIN Comment AS c ON c.item.id = i.id " +
+            "WHERE i.id = ?1 " +
+            "GROUP BY i.version, o.id, o.version")
+    Optional<ItemStampView> findStampById(Long itemId);
+
+    @EntityGraph(attributePaths = "owner")
+    Optional<Item> findWithOwnerById(Long id);
+
+    @EntityGraph(attributePaths = "owner")
+    List<Item> findAllByIdIn(Collection<Long> ids);
+
+    @EntityGraph(attributePaths = "owner")
+    List<Item> findAllByRequestIdIn(Collection<Long> requestsId);
 }
\ No newline at end of file
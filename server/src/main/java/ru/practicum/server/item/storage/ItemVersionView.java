@@ -0,0 +1,7 @@
+package ru.practicum.server.item.storage;
+
+public interface ItemVersionView {
+    Long getId();
+
+    long getVersion();
+}
@@ -0,0 +1,53 @@
+package ru.practicum.server.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Запись доменных событий в outbox. Пишет только внутри транзакции изменения,
+ * поэтому событие сохраняется тогда и только тогда, когда фиксируется само изменение.
+ */
+@Component
+@RequiredArgsConstructor
+public class Outbox {
+    private final OutboxStorage outboxStorage;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(Collection<? extends OutboxPayload> payloads) {
+        if (payloads.isEmpty()) {
+            return;
+        }
+        LocalDateTime created = LocalDateTime.now();
+        List<OutboxEvent> events = payloads.stream()
+                .map(p -> new OutboxEvent(null, p.eventType(), p.aggregateId(), write(p), created, 0))
+                .collect(Collectors.toList());
+        outboxStorage.appendAll(events);
+    }
+
+    public <T> T read(OutboxEvent event, Class<T> type) {
+        try {
+            return objectMapper.readValue(event.getPayload(), type);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String write(OutboxPayload payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
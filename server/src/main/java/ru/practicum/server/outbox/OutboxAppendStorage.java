@@ -0,0 +1,8 @@
+package ru.practicum.server.outbox;
+
+import java.util.List;
+
+public interface OutboxAppendStorage {
+
+    void appendAll(List<OutboxEvent> events);
+}
@@ -0,0 +1,27 @@
+package ru.practicum.server.outbox;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Запись событий одним JDBC batch в соединении текущей транзакции, без попадания в persistence context.
+ */
+@RequiredArgsConstructor
+public class OutboxAppendStorageImpl implements OutboxAppendStorage {
+    private static final String INSERT = "INSERT INTO outbox_events (event_type, aggregate_id, payload, created) "
+            + "VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void appendAll(List<OutboxEvent> events) {
+        jdbcTemplate.batchUpdate(INSERT, events.stream()
+                .map(e -> new Object[]{e.getType(), e.getAggregateId(), e.getPayload(),
+                        Timestamp.valueOf(e.getCreated())})
+                .collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,151 @@
+package ru.practicum.server.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Доставка событий outbox подписчикам пачками на ограниченном пуле потоков.
+ * События одной сущности доставляются последовательно и по порядку, разные сущности параллельно.
+ * Событие удаляется только после успешной доставки всем подписчикам, при ошибке счетчик попыток
+ * увеличивается, а событие и следующие за ним события той же сущности остаются до следующего прохода.
+ * После max-attempts неудачных попыток событие больше не выбирается и остается в таблице для разбора.
+ */
+@Slf4j
+@Component
+public class OutboxDispatcher {
+    private final OutboxStorage outboxStorage;
+    private final ObjectProvider<OutboxSubscriber> subscribers;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final ExecutorService executor;
+    private final Counter dispatched;
+    private final Counter failed;
+    private final Timer deliveryLag;
+    private final AtomicLong oldestPendingMillis = new AtomicLong();
+
+    public OutboxDispatcher(OutboxStorage outboxStorage,
+                            ObjectProvider<OutboxSubscriber> subscribers,
+                            MeterRegistry meterRegistry,
+                            @Value("${shareit.outbox.batch-size}") int batchSize,
+                            @Value("${shareit.outbox.threads}") int threads,
+                            @Value("${shareit.outbox.max-attempts}") int maxAttempts) {
+        this.outboxStorage = outboxStorage;
+        this.subscribers = subscribers;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(batchSize),
+                r -> new Thread(r, "outbox-dispatcher-" + threadNumber.incrementAndGet()),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "outbox");
+        this.dispatched = meterRegistry.counter("shareit.outbox.dispatched");
+        this.failed = meterRegistry.counter("shareit.outbox.failed");
+        this.deliveryLag = Timer.builder("shareit.outbox.delivery.lag")
+                .description("Время от записи события до его доставки")
+                .register(meterRegistry);
+        TimeGauge.builder("shareit.outbox.lag", oldestPendingMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Возраст самого старого недоставленного события на последнем проходе")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Выбирает пачки событий, пока они есть и доставляются без ошибок.
+     *
+     * @return число доставленных событий
+     */
+    @Scheduled(fixedDelayString = "${shareit.outbox.poll-delay}",
+            initialDelayString = "${shareit.outbox.poll-delay}")
+    public int drain() {
+        int total = 0;
+        while (true) {
+            List<OutboxEvent> batch = outboxStorage.findAllByAttemptsLessThanOrderByIdAsc(maxAttempts,
+                    PageRequest.of(0, batchSize));
+            oldestPendingMillis.set(batch.isEmpty()
+                    ? 0
+                    : Duration.between(batch.get(0).getCreated(), LocalDateTime.now()).toMillis());
+            if (batch.isEmpty()) {
+                return total;
+            }
+            Queue<Long> delivered = new ConcurrentLinkedQueue<>();
+            Queue<Long> failedIds = new ConcurrentLinkedQueue<>();
+            Map<Long, List<OutboxEvent>> byAggregate = batch.stream()
+                    .collect(Collectors.groupingBy(OutboxEvent::getAggregateId, LinkedHashMap::new,
+                            Collectors.toList()));
+            CompletableFuture.allOf(byAggregate.values().stream()
+                            .map(events -> CompletableFuture.runAsync(() -> deliver(events, delivered, failedIds),
+                                    executor))
+                            .toArray(CompletableFuture[]::new))
+                    .join();
+            if (!delivered.isEmpty()) {
+                outboxStorage.deleteAllByIdInBatch(new ArrayList<>(delivered));
+            }
+            if (!failedIds.isEmpty()) {
+                outboxStorage.incrementAttempts(new ArrayList<>(failedIds));
+            }
+            total += delivered.size();
+            log.debug("Доставлено {} событий outbox, с ошибкой {}", delivered.size(), failedIds.size());
+            if (batch.size() < batchSize || !failedIds.isEmpty()) {
+                if (failedIds.isEmpty()) {
+                    oldestPendingMillis.set(0);
+                }
+                return total;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void deliver(List<OutboxEvent> events, Queue<Long> delivered, Queue<Long> failedIds) {
+        for (OutboxEvent event : events) {
+            try {
+                subscribers.orderedStream()
+                        .filter(s -> s.supports(event.getType()))
+                        .forEach(s -> s.handle(event));
+            } catch (RuntimeException e) {
+                failed.increment();
+                failedIds.add(event.getId());
+                if (event.getAttempts() + 1 >= maxAttempts) {
+                    log.error("Событие outbox id={} не доставлено за {} попыток и отложено", event.getId(),
+                            maxAttempts, e);
+                } else {
+                    log.warn("Ошибка доставки события outbox id={}: {}", event.getId(), e.getMessage());
+                }
+                return;
+            }
+            delivered.add(event.getId());
+            dispatched.increment();
+            deliveryLag.record(Duration.between(event.getCreated(), LocalDateTime.now()));
+        }
+    }
+}
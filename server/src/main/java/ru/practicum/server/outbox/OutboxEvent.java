@@ -0,0 +1,33 @@
+package ru.practicum.server.outbox;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Доменное событие, ожидающее доставки подписчикам. Удаляется после успешной доставки всем подписчикам.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "event_id")
+    private Long id;
+    @Column(name = "event_type")
+    private String type;
+    @Column(name = "aggregate_id")
+    private Long aggregateId;
+    @Column(name = "payload")
+    private String payload;
+    @Column(name = "created")
+    private LocalDateTime created;
+    @Column(name = "attempts")
+    private int attempts;
+}
@@ -0,0 +1,14 @@
+package ru.practicum.server.outbox;
+
+/**
+ * Тело события для {@link Outbox}, сериализуется в JSON.
+ */
+public interface OutboxPayload {
+
+    String eventType();
+
+    /**
+     * Id сущности, события одной сущности доставляются в порядке записи.
+     */
+    Long aggregateId();
+}
@@ -0,0 +1,22 @@
+package ru.practicum.server.outbox;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxStorage extends JpaRepository<OutboxEvent, Long>, OutboxAppendStorage {
+
+    List<OutboxEvent> findAllByAttemptsLessThanOrderByIdAsc(int maxAttempts, Pageable page);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxEvent AS e " +
+            "SET e.attempts = e.attempts + 1 " +
+            "WHERE e.id IN (?1)")
+    int incrementAttempts(Collection<Long> ids);
+}
@@ -0,0 +1,12 @@
+package ru.practicum.server.outbox;
+
+/**
+ * Подписчик на события outbox. Доставка "хотя бы один раз": событие может прийти повторно,
+ * если упал другой подписчик или приложение остановилось до удаления события.
+ */
+public interface OutboxSubscriber {
+
+    boolean supports(String eventType);
+
+    void handle(OutboxEvent event);
+}
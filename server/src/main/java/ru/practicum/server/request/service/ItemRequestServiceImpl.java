@@ -17,7 +17,9 @@ import ru.practicum.server.util.Log;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,7 +34,7 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     @Transactional
     @Override
     public ItemRequestDto addRequest(ItemRequestDtoInput dto, Long userId) {
-        userService.getById(userId);
+        userService.checkExists(userId);
         ItemRequest savedRequest = requestStorage.save(ItemRequestMapper.toItemRequest(dto, userId));
         log.info("Добавлен нновый риквест:{} пользователя с id={}", dto, userId);
         return ItemRequestMapper.toItemRequestDto(savedRequest, new ArrayList<>());
@@ -42,7 +44,7 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     @Override
     public List<ItemRequestDto> getAllRequestsByOwner(Long userId) {
         log.info("Запрошен список риквестов пользователя с id={}", userId);
-        userService.getById(userId);
+        userService.checkExists(userId);
         List<ItemRequest> itemRequests = requestStorage.findAllByRequesterOrderByCreatedDesc(userId);
         return getItemRequestDto(itemRequests);
     }
@@ -53,7 +55,7 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         if (size <= 0 || from < 0) {
             Log.andThrowNotValid("size или from должен быть больше 0");
         }
-        userService.getById(userId);
+        userService.checkExists(userId);
         log.info("Запрошен список всех риквестов для пользователя с id={}", userId);
         PageRequest pages = PageRequest.of(from > 0 ? from / size : 0, size);
         List<ItemRequest> itemRequests = requestStorage.findAllByRequesterIsNotOrderByCreatedDesc(userId, pages);
@@ -64,10 +66,8 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     @Override
     public ItemRequestDto getRequestById(Long userId, Long requestId) {
         log.info("Запрошен риквест с id={} пользователя с id={}", requestId, userId);
-        userService.getById(userId);
-        ItemRequest itemRequest = getById(requestId);
-        List<Item> items = itemStorage.findAllByRequestIdIn(List.of(itemRequest.getId()));
-        return ItemRequestMapper.toItemRequestDto(itemRequest, items);
+        userService.checkExists(userId);
+        return getItemRequestDto(List.of(getById(requestId))).get(0);
     }
 
     private ItemRequest getById(Long requestId) {
@@ -79,12 +79,19 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     }
 
     private List<ItemRequestDto> getItemRequestDto(List<ItemRequest> itemRequests) {
+        if (itemRequests.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<Long> requestIds = itemRequests.stream()
+                .map(ItemRequest::getId)
+                .collect(Collectors.toSet());
+        Map<Long, List<Item>> itemsByRequest = itemStorage.findAllByRequestIdIn(requestIds).stream()
+                .collect(Collectors.groupingBy(Item::getRequestId));
         return itemRequests.stream()
                 .map(itemRequest -> ItemRequestMapper.toItemRequestDto(
                         itemRequest,
-                        itemStorage.findItemsByRequestId(itemRequest.getId())
+                        itemsByRequest.getOrDefault(itemRequest.getId(), new ArrayList<>())
                 ))
                 .collect(Collectors.toList());
     }
 }
-
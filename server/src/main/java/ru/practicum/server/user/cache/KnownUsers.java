@@ -0,0 +1,76 @@
+package ru.practicum.server.user.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import ru.practicum.server.user.storage.UserStorage;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Id пользователей, существование которых уже проверено: мемо на время HTTP запроса и общий кэш.
+ * Отрицательный результат не кэшируется, пользователь может появиться следующим запросом.
+ */
+@Component
+public class KnownUsers {
+    public static final String NAME = "users";
+    private static final String MEMO_ATTRIBUTE = KnownUsers.class.getName() + ".MEMO";
+
+    private final Cache cache;
+    private final UserStorage userStorage;
+
+    public KnownUsers(CacheManager cacheManager, UserStorage userStorage) {
+        this.cache = cacheManager.getCache(NAME);
+        this.userStorage = userStorage;
+    }
+
+    public boolean exists(Long id) {
+        Set<Long> memo = memo();
+        if (memo != null && memo.contains(id)) {
+            return true;
+        }
+        boolean exists = cache.get(id) != null || userStorage.existsById(id);
+        if (exists) {
+            cache.put(id, Boolean.TRUE);
+            if (memo != null) {
+                memo.add(id);
+            }
+        }
+        return exists;
+    }
+
+    public void evict(Long id) {
+        Set<Long> memo = memo();
+        if (memo != null) {
+            memo.remove(id);
+        }
+        cache.evict(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.evict(id);
+                }
+            });
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<Long> memo() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Set<Long> memo = (Set<Long>) attributes.getAttribute(MEMO_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (memo == null) {
+            memo = new HashSet<>();
+            attributes.setAttribute(MEMO_ATTRIBUTE, memo, RequestAttributes.SCOPE_REQUEST);
+        }
+        return memo;
+    }
+}
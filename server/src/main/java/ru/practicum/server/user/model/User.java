@@ -1,5 +1,6 @@
 package ru.practicum.server.user.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -27,5 +28,13 @@ public class User {
     @NotBlank
     @Email
     private String email;
+    @Version
+    @JsonIgnore
+    @Column(name = "version")
+    private long version;
+
+    public User(Long id, String name, String email) {
+        this(id, name, email, 0);
+    }
 }
 
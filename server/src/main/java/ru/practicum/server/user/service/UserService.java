@@ -17,4 +17,8 @@ public interface UserService {
     void deleteUser(Long id);
 
     User getById(Long id);
+
+    void checkExists(Long id);
+
+    User getReference(Long id);
 }
@@ -3,6 +3,9 @@ package ru.practicum.server.user.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.server.item.cache.ItemCache;
+import ru.practicum.server.user.cache.KnownUsers;
 import ru.practicum.server.user.dto.UserDto;
 import ru.practicum.server.user.dto.UserMapper;
 import ru.practicum.server.user.model.User;
@@ -18,6 +21,8 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
     private final UserStorage userStorage;
+    private final ItemCache itemCache;
+    private final KnownUsers knownUsers;
 
     @Override
     public User getById(Long id) {
@@ -28,6 +33,19 @@ public class UserServiceImpl implements UserService {
         return user.get();
     }
 
+    @Override
+    public void checkExists(Long id) {
+        if (!knownUsers.exists(id)) {
+            Log.andThrowNotFound(String.format("Не найден пользователь c id=%d.", id));
+        }
+    }
+
+    @Override
+    public User getReference(Long id) {
+        checkExists(id);
+        return userStorage.getReferenceById(id);
+    }
+
     @Override
     public UserDto getUserById(Long id) {
         log.info("Запрошен пользователь с id={}", id);
@@ -51,19 +69,25 @@ public class UserServiceImpl implements UserService {
         return UserMapper.toUserDto(newUser);
     }
 
+    @Transactional
     @Override
     public UserDto updateUser(Long userId, UserDto userDto) {
         User userToBeUpdated = getById(userId);
         checkAndSetFields(userDto, userToBeUpdated);
         User updatedUser = userStorage.save(userToBeUpdated);
+        itemCache.evictByOwner(userId);
         log.info("Обновлён пользователь: {}", userToBeUpdated);
         return UserMapper.toUserDto(updatedUser);
     }
 
+    @Transactional
     @Override
     public void deleteUser(Long id) {
         validateId(id);
+        // id вещей собираются до каскадного удаления, повторный сброс выполнится после коммита
+        itemCache.evictByOwner(id);
         userStorage.deleteById(id);
+        knownUsers.evict(id);
         log.debug("Удален пользователь с id={}", id);
     }
 
@@ -0,0 +1,8 @@
+package ru.practicum.server.user.storage;
+
+/**
+ * Версия владельца, вместе с версиями его вещей и комментариев из нее строится ETag списка его вещей.
+ */
+public interface OwnerStampView {
+    long getVersion();
+}
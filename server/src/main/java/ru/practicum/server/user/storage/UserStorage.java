@@ -3,6 +3,13 @@ package ru.practicum.server.user.storage;
 import ru.practicum.server.user.model.User;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Optional;
 
 public interface UserStorage extends JpaRepository<User, Long>  {
+    @Query("SELECT u.version AS version " +
+            "FROM User AS u " +
+            "WHERE u.id = ?1")
+    Optional<OwnerStampView> findOwnerStampById(Long ownerId);
 }
@@ -0,0 +1,22 @@
+package ru.practicum.server.util;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Валидатор ответа для If-None-Match: хэш от версий и прочих частей состояния, из которых строится ответ.
+ */
+public class ETag {
+    private ETag() {
+    }
+
+    public static String of(Object... parts) {
+        String state = Arrays.stream(parts)
+                .map(String::valueOf)
+                .collect(Collectors.joining("|"));
+        return DigestUtils.md5DigestAsHex(state.getBytes(StandardCharsets.UTF_8));
+    }
+}
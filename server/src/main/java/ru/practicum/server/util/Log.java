@@ -1,6 +1,7 @@
 package ru.practicum.server.util;
 
 import lombok.extern.slf4j.Slf4j;
+import ru.practicum.server.exception.ConflictException;
 import ru.practicum.server.exception.EmailException;
 import ru.practicum.server.exception.NotFoundException;
 import ru.practicum.server.exception.NotValidException;
@@ -17,6 +18,11 @@ public class Log {
         throw new NotFoundException(message);
     }
 
+    public static void andThrowConflict(String message) {
+        log.warn(message);
+        throw new ConflictException(message);
+    }
+
     public static void andThrowEmailConflict(String message) {
         log.warn(message);
         throw new EmailException(message);
@@ -1,5 +1,3 @@
-DROP TABLE IF EXISTS bookings, items, comments, users, requests CASCADE;
-
 CREATE TABLE IF NOT EXISTS users (
 user_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
 name VARCHAR(40) NOT NULL,
@@ -36,4 +34,4 @@ text VARCHAR(200) NOT NULL,
 item_id BIGINT REFERENCES items(item_id) ON DELETE CASCADE,
 author_name VARCHAR(40) NOT NULL,
 created TIMESTAMP
-);
\ No newline at end of file
+);
@@ -0,0 +1,21 @@
+-- GET /bookings: booker_id = ? ORDER BY start_date DESC, booking_id DESC
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_start ON bookings (booker_id, start_date DESC, booking_id DESC);
+
+-- GET /bookings/owner, last/next booking of an item, item availability timeline
+CREATE INDEX IF NOT EXISTS idx_bookings_item_start ON bookings (item_id, start_date DESC);
+
+-- GET /items: user_id = ? ORDER BY item_id
+CREATE INDEX IF NOT EXISTS idx_items_owner ON items (user_id, item_id);
+
+-- items answering item requests
+CREATE INDEX IF NOT EXISTS idx_items_request ON items (request);
+
+CREATE INDEX IF NOT EXISTS idx_comments_item ON comments (item_id);
+
+CREATE INDEX IF NOT EXISTS idx_comments_author ON comments (author_name);
+
+-- GET /requests: requester = ? ORDER BY created DESC
+CREATE INDEX IF NOT EXISTS idx_requests_requester_created ON requests (requester, created DESC);
+
+-- GET /requests/all: requester <> ? ORDER BY created DESC
+CREATE INDEX IF NOT EXISTS idx_requests_created ON requests (created DESC);
@@ -0,0 +1,15 @@
+-- last/next APPROVED booking of an item, kept up to date by the booking service
+CREATE TABLE IF NOT EXISTS item_booking_pointers (
+item_id BIGINT PRIMARY KEY REFERENCES items(item_id) ON DELETE CASCADE,
+last_booking_id BIGINT,
+last_booker_id BIGINT,
+last_start TIMESTAMP,
+last_end TIMESTAMP,
+next_booking_id BIGINT,
+next_booker_id BIGINT,
+next_start TIMESTAMP,
+next_end TIMESTAMP
+);
+
+-- background refresh: pointers whose next booking has already started
+CREATE INDEX IF NOT EXISTS idx_item_booking_pointers_next_start ON item_booking_pointers (next_start);
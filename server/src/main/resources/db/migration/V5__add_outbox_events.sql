@@ -0,0 +1,9 @@
+-- transactional outbox: domain events written in the transaction of the change, drained by OutboxDispatcher
+CREATE TABLE IF NOT EXISTS outbox_events (
+event_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+event_type VARCHAR(64) NOT NULL,
+aggregate_id BIGINT NOT NULL,
+payload VARCHAR(2048) NOT NULL,
+created TIMESTAMP NOT NULL,
+attempts INT NOT NULL DEFAULT 0
+);
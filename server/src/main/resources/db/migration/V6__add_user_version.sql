@@ -0,0 +1,2 @@
+-- owner and booker are embedded in item and booking responses, their changes must change response validators
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
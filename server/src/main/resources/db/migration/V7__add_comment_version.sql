@@ -0,0 +1,2 @@
+-- comments are embedded in item list responses, their changes must change response validators
+ALTER TABLE comments ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
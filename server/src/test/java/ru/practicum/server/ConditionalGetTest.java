@@ -0,0 +1,164 @@
+package ru.practicum.server;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.server.booking.dto.BookingDto;
+import ru.practicum.server.booking.dto.BookingDtoInput;
+import ru.practicum.server.booking.model.Booking;
+import ru.practicum.server.booking.model.Status;
+import ru.practicum.server.booking.service.BookingService;
+import ru.practicum.server.booking.storage.BookingStorage;
+import ru.practicum.server.item.dto.CommentDto;
+import ru.practicum.server.item.dto.ItemDto;
+import ru.practicum.server.item.model.Comment;
+import ru.practicum.server.item.model.Item;
+import ru.practicum.server.item.service.ItemService;
+import ru.practicum.server.item.storage.CommentStorage;
+import ru.practicum.server.item.storage.ItemStorage;
+import ru.practicum.server.user.dto.UserDto;
+import ru.practicum.server.user.model.User;
+import ru.practicum.server.user.service.UserService;
+import ru.practicum.server.user.storage.UserStorage;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Условный GET: повтор запроса с If-None-Match получает 304, пока не изменилось ничего из попадающего в ответ.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class ConditionalGetTest {
+    private static final String HEADER = "X-Sharer-User-Id";
+
+    private final MockMvc mockMvc;
+    private final BookingService bookingService;
+    private final BookingStorage bookingStorage;
+    private final ItemService itemService;
+    private final UserService userService;
+    private final ItemStorage itemStorage;
+    private final CommentStorage commentStorage;
+    private final UserStorage userStorage;
+    private User owner;
+    private User booker;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        owner = userStorage.save(new User(null, "owner", UUID.randomUUID() + "@owner.com"));
+        booker = userStorage.save(new User(null, "booker", UUID.randomUUID() + "@booker.com"));
+        item = itemStorage.save(new Item(null, "Палатка", "Палатка на четверых", owner, true, null));
+    }
+
+    @Test
+    @DisplayName("Карточка вещи: 304 до изменения вещи, владельца или комментариев")
+    void itemCardRevalidates() throws Exception {
+        String path = "/items/" + item.getId();
+        String etag = etag(path, owner.getId());
+        assertNotModified(path, owner.getId(), etag);
+
+        itemService.updateItem(owner.getId(), item.getId(), new ItemDto(null, "Палатка 2", null, null, null, null));
+        String updated = assertModified(path, owner.getId(), etag);
+
+        userService.updateUser(owner.getId(), new UserDto(null, "renamed", null));
+        String renamed = assertModified(path, owner.getId(), updated);
+
+        String forBooker = etag(path, booker.getId());
+        assertNotEquals(renamed, forBooker);
+        LocalDateTime now = LocalDateTime.now();
+        bookingStorage.save(new Booking(null, item, now.minusDays(2), now.minusDays(1), booker, Status.APPROVED));
+        itemService.addComment(booker.getId(), item.getId(), CommentDto.builder().text("Отличная палатка").build());
+        assertModified(path, booker.getId(), forBooker);
+    }
+
+    @Test
+    @DisplayName("Список вещей владельца: 304 до апрува брони или добавления вещи")
+    void ownerItemsRevalidate() throws Exception {
+        String etag = etag("/items", owner.getId());
+        assertNotModified("/items", owner.getId(), etag);
+
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        BookingDto booking = bookingService.addBooking(booker.getId(),
+                new BookingDtoInput(null, item.getId(), start, start.plusDays(1), null));
+        assertNotModified("/items", owner.getId(), etag);
+
+        bookingService.setApprovedByOwner(owner.getId(), booking.getId(), true);
+        String approved = assertModified("/items", owner.getId(), etag);
+
+        itemStorage.save(new Item(null, "Горелка", "Газовая горелка", owner, true, null));
+        assertModified("/items", owner.getId(), approved);
+    }
+
+    @Test
+    @DisplayName("Список вещей владельца: новая версия, если изменился его комментарий или вещь из комментария")
+    void ownerItemsRevalidateOnEmbeddedComments() throws Exception {
+        Item stove = itemStorage.save(new Item(null, "Горелка", "Газовая горелка", booker, true, null));
+        LocalDateTime now = LocalDateTime.now();
+        bookingStorage.save(new Booking(null, stove, now.minusDays(2), now.minusDays(1), owner, Status.APPROVED));
+        CommentDto added = itemService.addComment(owner.getId(), stove.getId(),
+                CommentDto.builder().text("Хорошая горелка").build());
+        String etag = etag("/items", owner.getId());
+
+        itemService.updateItem(booker.getId(), stove.getId(), new ItemDto(null, "Горелка 2", null, null, null, null));
+        String itemChanged = assertModified("/items", owner.getId(), etag);
+
+        Comment comment = commentStorage.findById(added.getId()).orElseThrow();
+        comment.setText("Горелка так себе");
+        commentStorage.save(comment);
+        assertModified("/items", owner.getId(), itemChanged);
+    }
+
+    @Test
+    @DisplayName("Бронь: 304 до смены статуса, чужой пользователь получает 404, а не 304")
+    void bookingRevalidates() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        BookingDto booking = bookingService.addBooking(booker.getId(),
+                new BookingDtoInput(null, item.getId(), start, start.plusDays(1), null));
+        String path = "/bookings/" + booking.getId();
+        String etag = etag(path, booker.getId());
+        assertNotModified(path, owner.getId(), etag);
+
+        mockMvc.perform(get(path).header(HEADER, Long.MAX_VALUE).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotFound());
+
+        bookingService.setApprovedByOwner(owner.getId(), booking.getId(), false);
+        assertModified(path, booker.getId(), etag);
+    }
+
+    private String etag(String path, Long userId) throws Exception {
+        String etag = mockMvc.perform(get(path).header(HEADER, userId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        return etag;
+    }
+
+    private void assertNotModified(String path, Long userId, String etag) throws Exception {
+        mockMvc.perform(get(path).header(HEADER, userId).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    private String assertModified(String path, Long userId, String etag) throws Exception {
+        String updated = mockMvc.perform(get(path).header(HEADER, userId).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, updated);
+        return updated;
+    }
+}
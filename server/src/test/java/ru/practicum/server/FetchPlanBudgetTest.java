@@ -0,0 +1,120 @@
+package ru.practicum.server;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.server.booking.dto.BookingDto;
+import ru.practicum.server.booking.dto.BookingDtoInput;
+import ru.practicum.server.booking.service.BookingService;
+import ru.practicum.server.item.cache.ItemCache;
+import ru.practicum.server.item.dto.ItemResponseDto;
+import ru.practicum.server.item.model.Comment;
+import ru.practicum.server.item.model.Item;
+import ru.practicum.server.item.service.ItemService;
+import ru.practicum.server.item.storage.CommentStorage;
+import ru.practicum.server.item.storage.ItemStorage;
+import ru.practicum.server.user.model.User;
+import ru.practicum.server.user.storage.UserStorage;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Бюджет SQL-запросов на основные сценарии чтения. Падает, если ленивая связь начала подгружаться
+ * отдельными запросами или план выборки перестал покрывать сценарий.
+ */
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class FetchPlanBudgetTest {
+    private static final int ITEMS = 5;
+
+    private final BookingService bookingService;
+    private final ItemService itemService;
+    private final ItemCache itemCache;
+    private final ItemStorage itemStorage;
+    private final CommentStorage commentStorage;
+    private final UserStorage userStorage;
+    private final EntityManagerFactory entityManagerFactory;
+    private User owner;
+    private User booker;
+    private Item item;
+    private BookingDto booking;
+
+    @BeforeEach
+    void setUp() {
+        owner = userStorage.save(new User(null, "owner", UUID.randomUUID() + "@owner.com"));
+        booker = userStorage.save(new User(null, "booker", UUID.randomUUID() + "@booker.com"));
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        for (int i = 0; i < ITEMS; i++) {
+            item = itemStorage.save(new Item(null, "Палатка " + i, "Палатка на четверых", owner, true, null));
+            booking = bookingService.addBooking(booker.getId(),
+                    new BookingDtoInput(null, item.getId(), start, start.plusDays(1), null));
+            commentStorage.save(new Comment(null, "Отличная палатка", item, owner.getName(), LocalDateTime.now()));
+        }
+    }
+
+    @Test
+    @DisplayName("Страница броней владельца и бронь по id читаются одним запросом")
+    void bookingListFitsBudget() {
+        List<BookingDto> page = withinBudget(1, () ->
+                bookingService.getAllBookings("ALL", owner.getId(), "owner", 0, ITEMS));
+        BookingDto byId = withinBudget(1, () -> bookingService.getBookingById(booking.getId(), booker.getId()));
+
+        assertEquals(ITEMS, page.size());
+        assertEquals(owner.getEmail(), page.get(0).getItem().getOwner().getEmail());
+        assertEquals(booker.getName(), byId.getBooker().getName());
+    }
+
+    @Test
+    @DisplayName("Апрув брони не подгружает вещь, владельца и букера отдельными запросами")
+    void approveFitsBudget() {
+        BookingDto approved = withinBudget(5, () ->
+                bookingService.setApprovedByOwner(owner.getId(), booking.getId(), true));
+
+        assertEquals(owner.getName(), approved.getItem().getOwner().getName());
+        assertEquals(booker.getName(), approved.getBooker().getName());
+    }
+
+    @Test
+    @DisplayName("Карточка вещи: вещь с владельцем, указатели броней и комментарии с вещью")
+    void itemCardFitsBudget() {
+        itemCache.evict(item.getId());
+
+        ItemResponseDto card = withinBudget(4, () -> itemService.getItemById(item.getId(), owner.getId()));
+        ItemResponseDto cached = withinBudget(3, () -> itemService.getItemById(item.getId(), owner.getId()));
+
+        assertEquals(owner.getName(), card.getOwner().getName());
+        assertEquals(owner.getName(), card.getComments().get(0).getItem().getOwner().getName());
+        assertEquals(card, cached);
+    }
+
+    @Test
+    @DisplayName("Список вещей владельца не зависит от числа вещей и комментариев")
+    void ownerItemsFitBudget() {
+        List<ItemResponseDto> items = withinBudget(5, () -> itemService.getAllItemsByUserId(owner.getId()));
+
+        assertEquals(ITEMS, items.size());
+        items.forEach(i -> assertEquals(owner.getName(), i.getComments().get(0).getItem().getOwner().getName()));
+    }
+
+    private <T> T withinBudget(int budget, Supplier<T> call) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        T result = call.get();
+        long statements = statistics.getPrepareStatementCount();
+        assertTrue(statements <= budget, "Выполнено " + statements + " запросов при бюджете " + budget);
+        return result;
+    }
+}
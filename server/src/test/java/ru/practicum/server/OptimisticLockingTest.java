@@ -0,0 +1,171 @@
+package ru.practicum.server;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.server.booking.dto.BookingDto;
+import ru.practicum.server.booking.dto.BookingDtoInput;
+import ru.practicum.server.booking.model.Booking;
+import ru.practicum.server.booking.model.Status;
+import ru.practicum.server.booking.service.BookingService;
+import ru.practicum.server.booking.storage.BookingStorage;
+import ru.practicum.server.exception.ConflictException;
+import ru.practicum.server.exception.NotValidException;
+import ru.practicum.server.item.dto.ItemDto;
+import ru.practicum.server.item.model.Item;
+import ru.practicum.server.item.service.ItemService;
+import ru.practicum.server.item.storage.ItemStorage;
+import ru.practicum.server.user.model.User;
+import ru.practicum.server.user.storage.UserStorage;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class OptimisticLockingTest {
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 10;
+    private static final int ITEM_UPDATES = 20;
+
+    private final BookingService bookingService;
+    private final BookingStorage bookingStorage;
+    private final ItemService itemService;
+    private final ItemStorage itemStorage;
+    private final UserStorage userStorage;
+    private ExecutorService executor;
+    private User owner;
+    private User booker;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(THREADS);
+        owner = userStorage.save(new User(null, "owner", UUID.randomUUID() + "@owner.com"));
+        booker = userStorage.save(new User(null, "booker", UUID.randomUUID() + "@booker.com"));
+        item = itemStorage.save(new Item(null, "Палатка", "Палатка на четверых", owner, true, null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Из параллельных апрувов одной брони проходит ровно один")
+    void shouldApproveOnlyOnce() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            BookingDto booking = book(round);
+            AtomicInteger approved = new AtomicInteger();
+
+            runConcurrently(THREADS, i -> {
+                try {
+                    bookingService.setApprovedByOwner(owner.getId(), booking.getId(), true);
+                    approved.incrementAndGet();
+                } catch (ConflictException | NotValidException e) {
+                    // проигравший запрос получает 409 или 400 "уже APPROVED"
+                }
+            });
+
+            Booking saved = bookingStorage.findById(booking.getId()).orElseThrow();
+            assertEquals(1, approved.get());
+            assertEquals(Status.APPROVED, saved.getStatus());
+            assertEquals(1, saved.getVersion());
+        }
+    }
+
+    @Test
+    @DisplayName("Каждое успешное решение по брони отражено в версии, гонка апрува и реджекта не теряет обновлений")
+    void shouldNotLoseDecisions() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            BookingDto booking = book(round);
+            AtomicInteger succeeded = new AtomicInteger();
+
+            runConcurrently(THREADS, i -> {
+                try {
+                    bookingService.setApprovedByOwner(owner.getId(), booking.getId(), i % 2 == 0);
+                    succeeded.incrementAndGet();
+                } catch (ConflictException | NotValidException e) {
+                    // решение по устаревшему статусу отклонено
+                }
+            });
+
+            Booking saved = bookingStorage.findById(booking.getId()).orElseThrow();
+            assertTrue(succeeded.get() >= 1);
+            assertEquals(succeeded.get(), saved.getVersion());
+            assertNotEquals(Status.WAITING, saved.getStatus());
+        }
+    }
+
+    @Test
+    @DisplayName("Параллельные изменения разных полей вещи не затирают друг друга")
+    void shouldNotLoseItemUpdates() throws Exception {
+        AtomicInteger conflicts = new AtomicInteger();
+
+        runConcurrently(2, writer -> {
+            for (int i = 0; i < ITEM_UPDATES; i++) {
+                ItemDto patch = writer == 0
+                        ? new ItemDto(null, "Палатка " + i, null, null, null, null)
+                        : new ItemDto(null, null, "Описание " + i, null, null, null);
+                while (true) {
+                    try {
+                        itemService.updateItem(owner.getId(), item.getId(), patch);
+                        break;
+                    } catch (ConflictException | OptimisticLockingFailureException e) {
+                        conflicts.incrementAndGet();
+                    }
+                }
+            }
+        });
+
+        Item saved = itemStorage.findById(item.getId()).orElseThrow();
+        assertEquals("Палатка " + (ITEM_UPDATES - 1), saved.getName());
+        assertEquals("Описание " + (ITEM_UPDATES - 1), saved.getDescription());
+        assertEquals(2 * ITEM_UPDATES, saved.getVersion());
+    }
+
+    private BookingDto book(int round) {
+        LocalDateTime start = LocalDateTime.now().plusDays(1 + 2L * round);
+        return bookingService.addBooking(booker.getId(),
+                new BookingDtoInput(null, item.getId(), start, start.plusDays(1), null));
+    }
+
+    private void runConcurrently(int threads, Task task) throws Exception {
+        CountDownLatch ready = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            int index = i;
+            futures.add(executor.submit((Callable<Void>) () -> {
+                ready.await();
+                task.run(index);
+                return null;
+            }));
+        }
+        ready.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+    }
+
+    private interface Task {
+        void run(int index);
+    }
+}
@@ -0,0 +1,182 @@
+package ru.practicum.server;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.server.booking.availability.BookingAvailabilityIndex;
+import ru.practicum.server.booking.dto.BookingCursor;
+import ru.practicum.server.booking.model.State;
+import ru.practicum.server.booking.storage.BookingFilter;
+import ru.practicum.server.booking.storage.BookingStorage;
+import ru.practicum.server.item.storage.CommentStorage;
+import ru.practicum.server.item.storage.ItemStorage;
+import ru.practicum.server.request.storage.ItemRequestStorage;
+import ru.practicum.server.user.model.User;
+import ru.practicum.server.user.storage.UserStorage;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+
+/**
+ * Планы H2 строятся по SQL, который Hibernate генерирует для методов хранилищ:
+ * запросы перехватываются {@link StatementInspector} и передаются в EXPLAIN без параметров.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class SchemaIndexTest {
+    private final LocalDateTime time = LocalDateTime.now();
+    @Autowired
+    private SqlCapture sqlCapture;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private BookingStorage bookingStorage;
+    @Autowired
+    private ItemStorage itemStorage;
+    @Autowired
+    private CommentStorage commentStorage;
+    @Autowired
+    private ItemRequestStorage itemRequestStorage;
+    @Autowired
+    private UserStorage userStorage;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userStorage.save(new User(null, "user", UUID.randomUUID() + "@user.com"));
+    }
+
+    @Test
+    @DisplayName("Следующая страница броней booker идет по индексу (booker_id, start_date)")
+    void bookerSeekPageUsesIndex() {
+        String plan = explain(() -> bookingStorage.search(filter(false, State.ALL)
+                .cursor(new BookingCursor(time, 5L))
+                .build()));
+
+        String condition = indexCondition(plan, "IDX_BOOKINGS_BOOKER_START");
+        assertThat(condition, containsString("BOOKER_ID = "));
+        assertThat(condition, containsString("START_DATE <= "));
+    }
+
+    @Test
+    @DisplayName("Брони владельца по состоянию идут по индексу (item_id, start_date)")
+    void ownerBookingsUseIndex() {
+        String plan = explain(() -> bookingStorage.search(filter(true, State.FUTURE).build()));
+
+        assertThat(indexCondition(plan, "IDX_BOOKINGS_ITEM_START"), containsString("ITEM_ID = "));
+        assertThat(plan, not(containsString("tableScan")));
+    }
+
+    @Test
+    @DisplayName("Чужие запросы читаются по индексу created без сортировки")
+    void otherRequestsUseSortedIndex() {
+        String plan = explain(() ->
+                itemRequestStorage.findAllByRequesterIsNotOrderByCreatedDesc(user.getId(), PageRequest.of(0, 10)));
+
+        assertThat(plan, containsString("IDX_REQUESTS_CREATED"));
+        assertThat(plan, containsString("index sorted"));
+    }
+
+    @Test
+    @DisplayName("Комментарии по автору идут по индексу")
+    void commentsByAuthorUseIndex() {
+        assertThat(explain(() -> commentStorage.findAllByAndAuthorName(user.getName())),
+                containsString("IDX_COMMENTS_AUTHOR"));
+    }
+
+    @Test
+    @DisplayName("Остальные горячие запросы не читают таблицу целиком")
+    void hotQueriesAvoidTableScan() {
+        List<Runnable> calls = List.of(
+                () -> bookingStorage.search(filter(false, State.ALL).build()),
+                () -> bookingStorage.findIntervalsByItemId(1L, BookingAvailabilityIndex.ACTIVE_STATUSES, time),
+                () -> itemStorage.findAllByOwnerOrderById(user),
+                () -> itemStorage.findAllByRequestIdIn(List.of(1L, 2L)),
+                () -> commentStorage.findAllByItemId(1L),
+                () -> itemRequestStorage.findAllByRequesterOrderByCreatedDesc(user.getId())
+        );
+        for (Runnable call : calls) {
+            String plan = explain(call);
+            assertThat(plan, plan, not(containsString("tableScan")));
+        }
+    }
+
+    private BookingFilter.BookingFilterBuilder filter(boolean owner, State state) {
+        return BookingFilter.builder()
+                .userId(user.getId())
+                .owner(owner)
+                .states(Set.of(state))
+                .time(time)
+                .size(10);
+    }
+
+    private String explain(Runnable call) {
+        sqlCapture.clear();
+        call.run();
+        List<String> selects = sqlCapture.selects();
+        assertThat(selects, hasSize(1));
+        return jdbcTemplate.queryForObject("EXPLAIN " + selects.get(0), String.class).replace("\n", " ");
+    }
+
+    /**
+     * Условие доступа по индексу из комментария плана H2 вида "INDEX: A = ... AND B <= ...".
+     * Порядок условий в комментарии зависит от выбранного порядка соединения таблиц.
+     */
+    private String indexCondition(String plan, String index) {
+        assertThat(plan, containsString(index + ":"));
+        String condition = plan.substring(plan.indexOf(index + ":"));
+        return condition.substring(0, condition.indexOf("*/"));
+    }
+
+    static class SqlCapture implements StatementInspector {
+        private final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+
+        void clear() {
+            statements.clear();
+        }
+
+        List<String> selects() {
+            return statements.stream()
+                    .filter(sql -> sql.stripLeading().regionMatches(true, 0, "select", 0, 6))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @TestConfiguration
+    static class SqlCaptureConfig {
+        @Bean
+        SqlCapture sqlCapture() {
+            return new SqlCapture();
+        }
+
+        @Bean
+        HibernatePropertiesCustomizer sqlCaptureCustomizer(SqlCapture sqlCapture) {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, sqlCapture);
+        }
+    }
+}
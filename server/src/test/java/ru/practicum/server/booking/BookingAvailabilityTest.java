@@ -0,0 +1,203 @@
+package ru.practicum.server.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.server.booking.availability.TimeSlot;
+import ru.practicum.server.booking.dto.BookingDto;
+import ru.practicum.server.booking.dto.BookingDtoInput;
+import ru.practicum.server.booking.service.BookingService;
+import ru.practicum.server.booking.storage.BookingStorage;
+import ru.practicum.server.exception.NotFoundException;
+import ru.practicum.server.exception.NotValidException;
+import ru.practicum.server.item.dto.ItemAvailabilityDto;
+import ru.practicum.server.item.model.Item;
+import ru.practicum.server.item.service.ItemService;
+import ru.practicum.server.item.storage.ItemStorage;
+import ru.practicum.server.user.model.User;
+import ru.practicum.server.user.storage.UserStorage;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class BookingAvailabilityTest {
+    private final BookingService bookingService;
+    private final ItemService itemService;
+    private final BookingStorage bookingStorage;
+    private final ItemStorage itemStorage;
+    private final UserStorage userStorage;
+    private final TransactionTemplate transactionTemplate;
+    private final List<User> bookers = new ArrayList<>();
+    private User owner;
+    private Item item;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        owner = userStorage.save(new User(null, "owner", UUID.randomUUID() + "@owner.com"));
+        bookers.clear();
+        for (int i = 0; i < 8; i++) {
+            bookers.add(userStorage.save(new User(null, "booker" + i, UUID.randomUUID() + "@booker.com")));
+        }
+        item = itemStorage.save(new Item(null, "Палатка", "Палатка на четверых", owner, true, null));
+        start = LocalDateTime.now().plusDays(1).withNano(0);
+    }
+
+    @Test
+    @DisplayName("Кидаем exc, если даты пересекаются с WAITING бронью")
+    void shouldRejectOverlappingBooking() {
+        bookingService.addBooking(bookers.get(0).getId(), input(start, start.plusDays(3)));
+
+        assertThrows(NotValidException.class, () ->
+                bookingService.addBooking(bookers.get(1).getId(), input(start.plusDays(1), start.plusDays(2))));
+        assertThrows(NotValidException.class, () ->
+                bookingService.addBooking(bookers.get(1).getId(), input(start.minusHours(1), start.plusHours(1))));
+        assertEquals(1, bookingStorage.findAllByItemIdAndOwnerId(item.getId(), owner.getId()).size());
+    }
+
+    @Test
+    @DisplayName("Бронь встык к существующей создается")
+    void shouldAddAdjacentBooking() {
+        bookingService.addBooking(bookers.get(0).getId(), input(start, start.plusDays(1)));
+
+        BookingDto next = bookingService.addBooking(bookers.get(1).getId(), input(start.plusDays(1), start.plusDays(2)));
+        BookingDto previous = bookingService.addBooking(bookers.get(2).getId(), input(start.minusHours(2), start));
+
+        assertNotNull(next.getId());
+        assertNotNull(previous.getId());
+    }
+
+    @Test
+    @DisplayName("Отклоненная бронь освобождает даты, повторный апрув проверяет пересечение")
+    void shouldFreeWindowAfterReject() {
+        BookingDto first = bookingService.addBooking(bookers.get(0).getId(), input(start, start.plusDays(2)));
+        bookingService.setApprovedByOwner(owner.getId(), first.getId(), false);
+
+        BookingDto second = bookingService.addBooking(bookers.get(1).getId(), input(start.plusDays(1), start.plusDays(3)));
+
+        assertNotNull(second.getId());
+        assertThrows(NotValidException.class, () ->
+                bookingService.setApprovedByOwner(owner.getId(), first.getId(), true));
+    }
+
+    @Test
+    @DisplayName("Календарь вещи сливает брони встык в один блок и отдает свободные окна между блоками")
+    void shouldReturnMergedBusyBlocksAndFreeGaps() {
+        bookingService.addBooking(bookers.get(0).getId(), input(start, start.plusDays(1)));
+        bookingService.addBooking(bookers.get(1).getId(), input(start.plusDays(1), start.plusDays(2)));
+        BookingDto later = bookingService.addBooking(bookers.get(2).getId(),
+                input(start.plusDays(4), start.plusDays(5)));
+
+        ItemAvailabilityDto calendar = itemService.getAvailability(item.getId(), start.minusHours(12),
+                start.plusDays(6));
+
+        assertEquals(List.of(new TimeSlot(start, start.plusDays(2)),
+                new TimeSlot(start.plusDays(4), start.plusDays(5))), calendar.getBusy());
+        assertEquals(List.of(new TimeSlot(start.minusHours(12), start),
+                new TimeSlot(start.plusDays(2), start.plusDays(4)),
+                new TimeSlot(start.plusDays(5), start.plusDays(6))), calendar.getFree());
+
+        bookingService.setApprovedByOwner(owner.getId(), later.getId(), false);
+        ItemAvailabilityDto clipped = itemService.getAvailability(item.getId(), start.plusHours(12),
+                start.plusDays(6));
+
+        assertEquals(List.of(new TimeSlot(start.plusHours(12), start.plusDays(2))), clipped.getBusy());
+        assertEquals(List.of(new TimeSlot(start.plusDays(2), start.plusDays(6))), clipped.getFree());
+    }
+
+    @Test
+    @DisplayName("Календарь не ждет транзакцию, держащую вещь, и показывает только закоммиченные брони")
+    void shouldReadCalendarWithoutWaitingForItemLock() throws Exception {
+        bookingService.addBooking(bookers.get(0).getId(), input(start, start.plusDays(1)));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch booked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            Future<?> writer = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                bookingService.addBooking(bookers.get(1).getId(), input(start.plusDays(2), start.plusDays(3)));
+                booked.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertTrue(booked.await(10, TimeUnit.SECONDS));
+
+            ItemAvailabilityDto during = CompletableFuture
+                    .supplyAsync(() -> itemService.getAvailability(item.getId(), start, start.plusDays(4)))
+                    .get(5, TimeUnit.SECONDS);
+            release.countDown();
+            writer.get(10, TimeUnit.SECONDS);
+
+            assertEquals(List.of(new TimeSlot(start, start.plusDays(1))), during.getBusy());
+            assertEquals(List.of(new TimeSlot(start, start.plusDays(1)), new TimeSlot(start.plusDays(2),
+                    start.plusDays(3))), itemService.getAvailability(item.getId(), start, start.plusDays(4)).getBusy());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Окно календаря в прошлом или с концом раньше начала отклоняется")
+    void tryGetAvailabilityWithBrokenWindow() {
+        assertThrows(NotValidException.class, () ->
+                itemService.getAvailability(item.getId(), start.plusDays(2), start.plusDays(1)));
+        assertThrows(NotValidException.class, () ->
+                itemService.getAvailability(item.getId(), null, LocalDateTime.now().minusDays(1)));
+        assertThrows(NotFoundException.class, () ->
+                itemService.getAvailability(-1L, null, null));
+    }
+
+    @Test
+    @DisplayName("Из конкурентных броней на одни даты создается только одна")
+    void shouldAllowSingleBookingUnderConcurrency() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(bookers.size());
+        CountDownLatch ready = new CountDownLatch(1);
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (User booker : bookers) {
+            futures.add(executor.submit(() -> {
+                ready.await();
+                try {
+                    bookingService.addBooking(booker.getId(), input(start, start.plusDays(1)));
+                } catch (NotValidException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        ready.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(bookers.size() - 1, rejected.get());
+        assertEquals(1, bookingStorage.findAllByItemIdAndOwnerId(item.getId(), owner.getId()).size());
+    }
+
+    private BookingDtoInput input(LocalDateTime start, LocalDateTime end) {
+        return new BookingDtoInput(null, item.getId(), start, end, null);
+    }
+}
@@ -0,0 +1,159 @@
+package ru.practicum.server.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.server.booking.dto.BookingDto;
+import ru.practicum.server.booking.dto.BookingDtoInput;
+import ru.practicum.server.booking.model.Booking;
+import ru.practicum.server.booking.model.Status;
+import ru.practicum.server.booking.service.BookingService;
+import ru.practicum.server.booking.storage.BookingBatchStorageImpl;
+import ru.practicum.server.booking.storage.BookingStorage;
+import ru.practicum.server.exception.NotFoundException;
+import ru.practicum.server.exception.NotValidException;
+import ru.practicum.server.item.model.Item;
+import ru.practicum.server.item.storage.ItemStorage;
+import ru.practicum.server.user.model.User;
+import ru.practicum.server.user.storage.UserStorage;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class BookingBatchTest {
+    private final BookingService bookingService;
+    private final BookingStorage bookingStorage;
+    private final ItemStorage itemStorage;
+    private final UserStorage userStorage;
+    private final EntityManagerFactory entityManagerFactory;
+    private User owner;
+    private User booker;
+    private Item tent;
+    private Item stove;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        owner = userStorage.save(new User(null, "owner", UUID.randomUUID() + "@owner.com"));
+        booker = userStorage.save(new User(null, "booker", UUID.randomUUID() + "@booker.com"));
+        tent = itemStorage.save(new Item(null, "Палатка", "Палатка на четверых", owner, true, null));
+        stove = itemStorage.save(new Item(null, "Горелка", "Газовая горелка", owner, true, null));
+        start = LocalDateTime.now().plusDays(1).withNano(0);
+    }
+
+    @Test
+    @DisplayName("Пакет создает все брони в порядке запроса за фиксированное число запросов")
+    void shouldAddAllBookingsOfBatch() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<BookingDto> result = bookingService.addBookings(booker.getId(), List.of(
+                input(tent, start, start.plusDays(1)),
+                input(stove, start, start.plusDays(1)),
+                input(tent, start.plusDays(1), start.plusDays(2))));
+
+        assertEquals(List.of(tent.getId(), stove.getId(), tent.getId()), result.stream()
+                .map(b -> b.getItem().getId())
+                .collect(Collectors.toList()));
+        assertTrue(result.stream().allMatch(b -> b.getId() != null && b.getStatus() == Status.WAITING));
+        assertEquals(booker.getName(), result.get(0).getBooker().getName());
+        assertTrue(statistics.getPrepareStatementCount() <= 4, "Запросов: " + statistics.getPrepareStatementCount());
+        assertEquals(2, bookingStorage.findAllByItemIdAndOwnerId(tent.getId(), owner.getId()).size());
+        assertThrows(NotValidException.class, () ->
+                bookingService.addBooking(booker.getId(), input(stove, start.plusHours(1), start.plusHours(2))));
+    }
+
+    @Test
+    @DisplayName("Пересечение внутри пакета откатывает весь пакет и называет индексы пересекающихся броней")
+    void shouldRejectBatchWithInnerOverlap() {
+        NotValidException e = assertThrows(NotValidException.class, () -> bookingService.addBookings(booker.getId(),
+                List.of(input(stove, start, start.plusDays(1)),
+                        input(tent, start, start.plusDays(2)),
+                        input(tent, start.plusDays(1), start.plusDays(3)))));
+
+        assertTrue(e.getMessage().contains("индексами 1 и 2"), e.getMessage());
+
+        assertTrue(bookingStorage.findAllByItemIdAndOwnerId(stove.getId(), owner.getId()).isEmpty());
+        assertNotNull(bookingService.addBooking(booker.getId(), input(stove, start, start.plusDays(1))).getId());
+    }
+
+    @Test
+    @DisplayName("Пересечение с существующей бронью, неизвестная или недоступная вещь откатывают весь пакет"
+            + " и называют индекс брони")
+    void shouldRejectBatchConflictingWithExisting() {
+        bookingService.addBooking(booker.getId(), input(tent, start, start.plusDays(1)));
+        Item hidden = itemStorage.save(new Item(null, "Котелок", "Котелок на 2 литра", owner, false, null));
+
+        NotValidException overlap = assertThrows(NotValidException.class, () ->
+                bookingService.addBookings(booker.getId(), List.of(
+                        input(stove, start, start.plusDays(1)),
+                        input(tent, start.plusHours(12), start.plusDays(2)))));
+        NotFoundException unknown = assertThrows(NotFoundException.class, () ->
+                bookingService.addBookings(booker.getId(), List.of(
+                        input(stove, start, start.plusDays(1)),
+                        new BookingDtoInput(null, -1L, start, start.plusDays(1), null))));
+        NotValidException unavailable = assertThrows(NotValidException.class, () ->
+                bookingService.addBookings(booker.getId(), List.of(
+                        input(stove, start, start.plusDays(1)),
+                        input(stove, start.plusDays(1), start.plusDays(2)),
+                        input(hidden, start, start.plusDays(1)))));
+
+        assertTrue(overlap.getMessage().startsWith("Бронь пакета с индексом 1:"), overlap.getMessage());
+        assertTrue(unknown.getMessage().startsWith("Бронь пакета с индексом 1:"), unknown.getMessage());
+        assertTrue(unavailable.getMessage().startsWith("Бронь пакета с индексом 2:"), unavailable.getMessage());
+
+        assertTrue(bookingStorage.findAllByItemIdAndOwnerId(stove.getId(), owner.getId()).isEmpty());
+        assertEquals(1, bookingStorage.findAllByItemIdAndOwnerId(tent.getId(), owner.getId()).size());
+    }
+
+    @Test
+    @DisplayName("Недостающий сгенерированный ключ прерывает вставку пакета")
+    void shouldFailWhenGeneratedKeysAreMissing() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet keys = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString(), any(String[].class))).thenReturn(statement);
+        when(statement.getGeneratedKeys()).thenReturn(keys);
+        when(keys.next()).thenReturn(true, false);
+        when(keys.getLong(1)).thenReturn(1L);
+        List<Booking> bookings = List.of(
+                new Booking(null, tent, start, start.plusDays(1), booker, Status.WAITING, 0),
+                new Booking(null, stove, start, start.plusDays(1), booker, Status.WAITING, 0));
+
+        assertThrows(DataRetrievalFailureException.class, () ->
+                new BookingBatchStorageImpl(new JdbcTemplate(dataSource)).insertAll(bookings));
+        assertEquals(1L, bookings.get(0).getId());
+        assertNull(bookings.get(1).getId());
+    }
+
+    private BookingDtoInput input(Item item, LocalDateTime start, LocalDateTime end) {
+        return new BookingDtoInput(null, item.getId(), start, end, null);
+    }
+}
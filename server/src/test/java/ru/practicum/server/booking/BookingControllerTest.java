@@ -11,25 +11,39 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import ru.practicum.server.booking.service.BookingService;
 import ru.practicum.server.booking.model.Status;
+import ru.practicum.server.booking.dto.BookingCursor;
+import ru.practicum.server.booking.dto.BookingDecisionDto;
+import ru.practicum.server.booking.dto.BookingDecisionResult;
 import ru.practicum.server.booking.dto.BookingDto;
 import ru.practicum.server.booking.dto.BookingDtoInput;
+import ru.practicum.server.exception.ConflictException;
 import ru.practicum.server.exception.NotFoundException;
 import ru.practicum.server.exception.NotValidException;
 import ru.practicum.server.item.model.Item;
 import ru.practicum.server.user.model.User;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = BookingController.class)
@@ -74,6 +88,80 @@ public class BookingControllerTest {
                 .build();
     }
 
+    @Test
+    @DisplayName("Создаем пакет броней, результат в порядке запроса")
+    public void addReservations() throws Exception {
+        BookingDto second = new BookingDto(2L, item, start.plusDays(2), end.plusDays(2), booker, Status.WAITING);
+        when(bookingService.addBookings(anyLong(), anyList()))
+                .thenReturn(List.of(bookingDto, second));
+
+        String jsonBookings = objectMapper.writeValueAsString(List.of(
+                new BookingDtoInput(null, 1L, start, end, null),
+                new BookingDtoInput(null, 1L, start.plusDays(2), end.plusDays(2), null)));
+
+        mockMvc.perform(post("/bookings/batch")
+                        .header(HEADER, booker.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(jsonBookings))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[1].id").value(2));
+    }
+
+    @Test
+    @DisplayName("Пустой пакет броней отклоняется")
+    public void addReservationsEmpty() throws Exception {
+        mockMvc.perform(post("/bookings/batch")
+                        .header(HEADER, booker.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Пакет решений владельца возвращает исход по каждому id")
+    public void setDecisionsByOwner() throws Exception {
+        when(bookingService.setDecisionsByOwner(anyLong(), anyList()))
+                .thenReturn(List.of(new BookingDecisionResult(1L, BookingDecisionResult.Outcome.APPROVED),
+                        new BookingDecisionResult(2L, BookingDecisionResult.Outcome.CONFLICT)));
+
+        String jsonDecisions = objectMapper.writeValueAsString(List.of(
+                new BookingDecisionDto(1L, true), new BookingDecisionDto(2L, true)));
+
+        mockMvc.perform(patch("/bookings/owner/decisions")
+                        .header(HEADER, owner.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(jsonDecisions))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].bookingId").value(1))
+                .andExpect(jsonPath("$[0].outcome").value("APPROVED"))
+                .andExpect(jsonPath("$[1].outcome").value("CONFLICT"));
+    }
+
+    @Test
+    @DisplayName("Решение без approved отклоняется")
+    public void setDecisionsByOwnerWithoutApproved() throws Exception {
+        mockMvc.perform(patch("/bookings/owner/decisions")
+                        .header(HEADER, owner.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"bookingId\": 1}]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Параллельное изменение статуса отдается как 409")
+    public void setApprovedByOwnerConflict() throws Exception {
+        when(bookingService.setApprovedByOwner(anyLong(), anyLong(), anyBoolean()))
+                .thenThrow(new ConflictException("Статус бронирования с id=1 изменен параллельным запросом"));
+
+        mockMvc.perform(patch("/bookings/1")
+                        .header(HEADER, owner.getId())
+                        .param("approved", "true"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("Статус бронирования с id=1 изменен параллельным запросом"));
+    }
+
     @Test
     @DisplayName("Создаем booking")
     public void addReservation() throws Exception {
@@ -243,5 +331,69 @@ public class BookingControllerTest {
                 .andExpect(status().is4xxClientError());
     }
 
-}
+    @Test
+    @DisplayName("Отдаем cursor следующей страницы, если страница заполнена")
+    public void shouldReturnNextCursorWhenPageIsFull() throws Exception {
+        Integer userId = 2;
+        String cursor = new BookingCursor(bookingDto.getStart(), bookingDto.getId()).encode();
+
+        when(bookingService.getAllBookings(anyString(), anyLong(), anyString(), anyInt(), anyInt()))
+                .thenReturn(List.of(bookingDto, bookingDto));
+
+        mockMvc.perform(get("/bookings/owner?size=2")
+                        .header(HEADER, userId))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", cursor))
+                .andExpect(jsonPath("$", hasSize(2)));
+    }
+
+    @Test
+    @DisplayName("Получаем страницу после cursor")
+    public void shouldGetPageAfterCursor() throws Exception {
+        Integer userId = 2;
+        String cursor = new BookingCursor(bookingDto.getStart(), bookingDto.getId()).encode();
+
+        when(bookingService.getAllBookingsAfter(anyString(), anyLong(), anyString(), eq(cursor), anyInt()))
+                .thenReturn(List.of(bookingDto));
+
+        mockMvc.perform(get("/bookings?cursor={cursor}&size=2", cursor)
+                        .header(HEADER, userId))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    @DisplayName("Выгружаем брони владельца построчно в NDJSON")
+    public void shouldExportReservationsAsNdjson() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<BookingDto> consumer = invocation.getArgument(3);
+            consumer.accept(bookingDto);
+            consumer.accept(bookingDto);
+            return null;
+        }).when(bookingService).exportBookings(eq("FUTURE"), eq(2L), eq("owner"), any());
+
+        MvcResult result = mockMvc.perform(get("/bookings/owner/export?state=FUTURE")
+                        .header(HEADER, 2L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(bookingDto.getId(), objectMapper.readValue(lines[1], BookingDto.class).getId());
+    }
 
+    @Test
+    @DisplayName("Неизвестный стейт выгрузки отклоняется до начала потока")
+    public void tryExportWithUnknownState() throws Exception {
+        mockMvc.perform(get("/bookings/export?state=UNKNOWN")
+                        .header(HEADER, 1L))
+                .andExpect(status().isBadRequest());
+
+        verify(bookingService, never()).exportBookings(anyString(), anyLong(), anyString(), any());
+    }
+}
@@ -0,0 +1,179 @@
+package ru.practicum.server.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.server.booking.availability.BookingAvailabilityIndex;
+import ru.practicum.server.booking.dto.BookingDecisionDto;
+import ru.practicum.server.booking.dto.BookingDecisionResult;
+import ru.practicum.server.booking.dto.BookingDecisionResult.Outcome;
+import ru.practicum.server.booking.dto.BookingDto;
+import ru.practicum.server.booking.dto.BookingDtoInput;
+import ru.practicum.server.booking.model.Booking;
+import ru.practicum.server.booking.model.Status;
+import ru.practicum.server.booking.pointer.ItemBookingPointerStorage;
+import ru.practicum.server.booking.service.BookingService;
+import ru.practicum.server.booking.storage.BookingStorage;
+import ru.practicum.server.exception.NotValidException;
+import ru.practicum.server.item.model.Item;
+import ru.practicum.server.item.storage.ItemStorage;
+import ru.practicum.server.user.model.User;
+import ru.practicum.server.user.storage.UserStorage;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class BookingDecisionsTest {
+    private final BookingService bookingService;
+    private final BookingStorage bookingStorage;
+    private final ItemBookingPointerStorage pointerStorage;
+    private final ItemStorage itemStorage;
+    private final UserStorage userStorage;
+    private final EntityManagerFactory entityManagerFactory;
+    @SpyBean
+    private BookingAvailabilityIndex availabilityIndex;
+    private User owner;
+    private User booker;
+    private Item tent;
+    private Item stove;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        owner = userStorage.save(new User(null, "owner", UUID.randomUUID() + "@owner.com"));
+        booker = userStorage.save(new User(null, "booker", UUID.randomUUID() + "@booker.com"));
+        tent = itemStorage.save(new Item(null, "Палатка", "Палатка на четверых", owner, true, null));
+        stove = itemStorage.save(new Item(null, "Горелка", "Газовая горелка", owner, true, null));
+        start = LocalDateTime.now().plusDays(1).withNano(0);
+    }
+
+    @Test
+    @DisplayName("Решения применяются одним UPDATE на новый статус, исход возвращается по каждому id")
+    void shouldApplyDecisionsAndReportOutcomes() {
+        BookingDto approve = book(tent, start, start.plusDays(1));
+        BookingDto reject = book(tent, start.plusDays(2), start.plusDays(3));
+        BookingDto approved = book(stove, start, start.plusDays(1));
+        bookingService.setApprovedByOwner(owner.getId(), approved.getId(), true);
+        User stranger = userStorage.save(new User(null, "stranger", UUID.randomUUID() + "@owner.com"));
+        Item foreign = itemStorage.save(new Item(null, "Котелок", "Котелок на 2 литра", stranger, true, null));
+        BookingDto foreignBooking = book(foreign, start, start.plusDays(1));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<BookingDecisionResult> results = bookingService.setDecisionsByOwner(owner.getId(), List.of(
+                new BookingDecisionDto(approve.getId(), true),
+                new BookingDecisionDto(reject.getId(), false),
+                new BookingDecisionDto(approved.getId(), true),
+                new BookingDecisionDto(foreignBooking.getId(), true),
+                new BookingDecisionDto(Long.MAX_VALUE, false)));
+
+        assertEquals(List.of(Outcome.APPROVED, Outcome.REJECTED, Outcome.ALREADY_APPROVED, Outcome.NOT_FOUND,
+                Outcome.NOT_FOUND), outcomes(results));
+        assertEquals(0, statistics.getEntityUpdateCount());
+        assertTrue(statistics.getPrepareStatementCount() <= 6, "Запросов: " + statistics.getPrepareStatementCount());
+        assertEquals(Status.APPROVED, bookingStorage.findById(approve.getId()).orElseThrow().getStatus());
+        assertEquals(Status.REJECTED, bookingStorage.findById(reject.getId()).orElseThrow().getStatus());
+        assertEquals(Status.WAITING, bookingStorage.findById(foreignBooking.getId()).orElseThrow().getStatus());
+        assertEquals(approve.getId(), pointerStorage.findById(tent.getId()).orElseThrow().getNext().getBookingId());
+        assertNotNull(book(tent, start.plusDays(2), start.plusDays(3)).getId());
+    }
+
+    @Test
+    @DisplayName("Из двух пересекающихся броней в одном пакете апрувится только первая")
+    void shouldDetectOverlapInsideBatch() {
+        BookingDto first = book(tent, start, start.plusDays(2));
+        bookingService.setApprovedByOwner(owner.getId(), first.getId(), false);
+        BookingDto second = book(tent, start.plusDays(1), start.plusDays(3));
+        bookingService.setApprovedByOwner(owner.getId(), second.getId(), false);
+
+        List<BookingDecisionResult> results = bookingService.setDecisionsByOwner(owner.getId(), List.of(
+                new BookingDecisionDto(first.getId(), true),
+                new BookingDecisionDto(second.getId(), true)));
+
+        assertEquals(List.of(Outcome.APPROVED, Outcome.CONFLICT), outcomes(results));
+        assertEquals(Status.APPROVED, bookingStorage.findById(first.getId()).orElseThrow().getStatus());
+        assertEquals(Status.REJECTED, bookingStorage.findById(second.getId()).orElseThrow().getStatus());
+        assertThrows(NotValidException.class, () -> book(tent, start.plusDays(1), start.plusDays(3)));
+    }
+
+    @Test
+    @DisplayName("Решение по брони, статус которой изменился после чтения, не применяется, остальные применяются")
+    void shouldReportConflictWhenStatusChangedAfterRead() {
+        BookingDto changed = book(tent, start, start.plusDays(1));
+        BookingDto untouched = book(stove, start, start.plusDays(1));
+        doAnswer(invocation -> {
+            // владелец успевает отклонить бронь отдельным запросом между чтением статусов и блокировкой вещей
+            CompletableFuture.runAsync(() -> bookingService.setApprovedByOwner(owner.getId(), changed.getId(), false))
+                    .join();
+            return invocation.callRealMethod();
+        }).when(availabilityIndex).lockItems(any());
+
+        List<BookingDecisionResult> results = bookingService.setDecisionsByOwner(owner.getId(), List.of(
+                new BookingDecisionDto(changed.getId(), true),
+                new BookingDecisionDto(untouched.getId(), true)));
+
+        assertEquals(List.of(Outcome.CONFLICT, Outcome.APPROVED), outcomes(results));
+        assertEquals(Status.REJECTED, bookingStorage.findById(changed.getId()).orElseThrow().getStatus());
+        assertEquals(1, bookingStorage.findById(changed.getId()).orElseThrow().getVersion());
+        assertEquals(Status.APPROVED, bookingStorage.findById(untouched.getId()).orElseThrow().getStatus());
+        assertNotNull(book(tent, start, start.plusDays(1)).getId());
+        assertThrows(NotValidException.class, () -> book(stove, start, start.plusDays(1)));
+    }
+
+    @Test
+    @DisplayName("Из двух пересекающихся ожидающих броней, созданных до проверки пересечений, апрувится только первая")
+    void shouldDetectOverlapOfLegacyWaitingBookings() {
+        Booking first = bookingStorage.save(new Booking(null, tent, start, start.plusDays(2), booker,
+                Status.WAITING, 0));
+        Booking second = bookingStorage.save(new Booking(null, tent, start.plusDays(1), start.plusDays(3), booker,
+                Status.WAITING, 0));
+
+        List<BookingDecisionResult> results = bookingService.setDecisionsByOwner(owner.getId(), List.of(
+                new BookingDecisionDto(first.getId(), true),
+                new BookingDecisionDto(second.getId(), true)));
+
+        assertEquals(List.of(Outcome.APPROVED, Outcome.CONFLICT), outcomes(results));
+        assertEquals(Status.APPROVED, bookingStorage.findById(first.getId()).orElseThrow().getStatus());
+        assertEquals(Status.WAITING, bookingStorage.findById(second.getId()).orElseThrow().getStatus());
+        assertThrows(NotValidException.class, () ->
+                bookingService.setApprovedByOwner(owner.getId(), second.getId(), true));
+        assertEquals(Status.WAITING, bookingStorage.findById(second.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    @DisplayName("Повторяющийся id в пакете решений отклоняется")
+    void shouldRejectDuplicateIds() {
+        BookingDto booking = book(tent, start, start.plusDays(1));
+
+        assertThrows(NotValidException.class, () -> bookingService.setDecisionsByOwner(owner.getId(), List.of(
+                new BookingDecisionDto(booking.getId(), true),
+                new BookingDecisionDto(booking.getId(), false))));
+        assertEquals(Status.WAITING, bookingStorage.findById(booking.getId()).orElseThrow().getStatus());
+    }
+
+    private BookingDto book(Item item, LocalDateTime start, LocalDateTime end) {
+        return bookingService.addBooking(booker.getId(), new BookingDtoInput(null, item.getId(), start, end, null));
+    }
+
+    private static List<Outcome> outcomes(List<BookingDecisionResult> results) {
+        return results.stream().map(BookingDecisionResult::getOutcome).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,141 @@
+package ru.practicum.server.booking;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.server.booking.dto.BookingDto;
+import ru.practicum.server.booking.dto.BookingMapper;
+import ru.practicum.server.booking.model.Booking;
+import ru.practicum.server.booking.model.State;
+import ru.practicum.server.booking.storage.BookingFilter;
+import ru.practicum.server.booking.storage.BookingStorage;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Сравнение чтения 10k броней через сущности (с обходом item.owner и booker, как при сериализации)
+ * и через плоскую проекцию.
+ * Время только логируется, проверяются число запросов и загруженных сущностей.
+ */
+@Slf4j
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class BookingReadPathBenchmarkTest {
+    private static final int ROWS = 10_000;
+    private static final int OWNERS = 500;
+    private static final int ROUNDS = 5;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BookingStorage bookingStorage;
+    private final EntityManager entityManager;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TransactionTemplate transactionTemplate;
+    private Long bookerId;
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.update("INSERT INTO users (name, email) VALUES ('booker', 'bench-booker@mail.com')");
+        bookerId = jdbcTemplate.queryForObject("SELECT user_id FROM users WHERE email = 'bench-booker@mail.com'",
+                Long.class);
+        List<Object[]> owners = new ArrayList<>();
+        for (int i = 0; i < OWNERS; i++) {
+            owners.add(new Object[]{"owner" + i, "bench-owner" + i + "@mail.com"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (name, email) VALUES (?, ?)", owners);
+        jdbcTemplate.update("INSERT INTO items (name, description, user_id, available) "
+                + "SELECT 'Вещь ' || user_id, 'Описание', user_id, TRUE FROM users WHERE email LIKE 'bench-owner%'");
+        List<Long> itemIds = jdbcTemplate.queryForList("SELECT item_id FROM items", Long.class);
+        LocalDateTime start = LocalDateTime.now().minusYears(1);
+        List<Object[]> bookings = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            LocalDateTime bookingStart = start.plusHours(i);
+            bookings.add(new Object[]{itemIds.get(i % itemIds.size()), Timestamp.valueOf(bookingStart),
+                    Timestamp.valueOf(bookingStart.plusMinutes(30)), bookerId, "APPROVED"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO bookings (item_id, start_date, end_date, booker_id, status) "
+                + "VALUES (?, ?, ?, ?, ?)", bookings);
+    }
+
+    @Test
+    @DisplayName("Проекция читает 10k броней одним запросом без сущностей и с тем же результатом")
+    void projectionReadsBookingsInSingleStatement() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        List<BookingDto> entities = measure("entity", statistics, this::readEntities);
+        long entityStatements = statistics.getPrepareStatementCount();
+        long entityLoads = statistics.getEntityLoadCount();
+        List<BookingDto> rows = measure("projection", statistics, this::readRows);
+
+        assertEquals(ROWS, rows.size());
+        assertEquals(ids(entities), ids(rows));
+        assertEquals(entities.get(0).getItem().getOwner(), rows.get(0).getItem().getOwner());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertTrue(entityStatements > 1);
+        assertTrue(entityLoads > ROWS);
+    }
+
+    private List<BookingDto> readEntities() {
+        return transactionTemplate.execute(status -> entityManager.createQuery(
+                        "SELECT b FROM Booking AS b WHERE b.booker.id = ?1 ORDER BY b.start DESC, b.id DESC",
+                        Booking.class)
+                .setParameter(1, bookerId)
+                .getResultStream()
+                .map(BookingMapper::toBookingDto)
+                .peek(dto -> touch(dto.getItem().getOwner().getName(), dto.getBooker().getName()))
+                .collect(Collectors.toList()));
+    }
+
+    private List<BookingDto> readRows() {
+        return transactionTemplate.execute(status -> bookingStorage.search(BookingFilter.builder()
+                .userId(bookerId)
+                .states(Set.of(State.ALL))
+                .time(LocalDateTime.now())
+                .size(ROWS)
+                .build()));
+    }
+
+    private List<BookingDto> measure(String name, Statistics statistics, Supplier<List<BookingDto>> read) {
+        List<BookingDto> result = read.get();
+        long total = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            statistics.clear();
+            long started = System.nanoTime();
+            result = read.get();
+            total += System.nanoTime() - started;
+        }
+        log.info("Чтение {} броней через {}: {} мс в среднем, {} запросов, {} сущностей", ROWS, name,
+                total / ROUNDS / 1_000_000, statistics.getPrepareStatementCount(), statistics.getEntityLoadCount());
+        return result;
+    }
+
+    private static void touch(String... values) {
+        // обращение к полям инициализирует ленивые ссылки так же, как их обошел бы сериализатор
+    }
+
+    private static List<Long> ids(List<BookingDto> bookings) {
+        return bookings.stream().map(BookingDto::getId).collect(Collectors.toList());
+    }
+}
@@ -8,6 +8,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.server.booking.dto.BookingCursor;
 import ru.practicum.server.booking.dto.BookingDto;
 import ru.practicum.server.booking.dto.BookingDtoInput;
 import ru.practicum.server.booking.dto.BookingMapper;
@@ -23,6 +24,7 @@ import ru.practicum.server.user.model.User;
 import ru.practicum.server.user.storage.UserStorage;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -218,4 +220,49 @@ class BookingServiceTest {
             bookingService.getAllBookings("ALL", owner.getId(), "booker", 0, 10);
         });
     }
+
+    @Test
+    @DisplayName("Листаем booking для booker по cursor")
+    public void shouldGetAllReserveAfterCursor() {
+        for (int i = 1; i <= 3; i++) {
+            bookingDtoInput.setStart(LocalDateTime.now().withNano(0).plusDays(i * 2L));
+            bookingDtoInput.setEnd(LocalDateTime.now().withNano(0).plusDays(i * 2L + 1));
+            bookingService.addBooking(booker.getId(), bookingDtoInput);
+        }
+
+        List<BookingDto> firstPage = bookingService.getAllBookings("ALL", booker.getId(), "booker", 0, 2);
+        String cursor = BookingCursor.of(firstPage.get(1)).encode();
+        List<BookingDto> secondPage = bookingService.getAllBookingsAfter("ALL", booker.getId(), "booker", cursor, 2);
+
+        assertEquals(2, firstPage.size());
+        assertEquals(1, secondPage.size());
+        assertTrue(secondPage.get(0).getStart().isBefore(firstPage.get(1).getStart()));
+    }
+
+    @Test
+    @DisplayName("Выгрузка отдает все брони пользователя в порядке списка")
+    public void shouldExportAllReserve() {
+        for (int i = 1; i <= 3; i++) {
+            bookingDtoInput.setStart(LocalDateTime.now().withNano(0).plusDays(i * 2L));
+            bookingDtoInput.setEnd(LocalDateTime.now().withNano(0).plusDays(i * 2L + 1));
+            bookingService.addBooking(booker.getId(), bookingDtoInput);
+        }
+        List<BookingDto> exported = new ArrayList<>();
+        List<BookingDto> exportedForOwner = new ArrayList<>();
+
+        bookingService.exportBookings("ALL", booker.getId(), "booker", exported::add);
+        bookingService.exportBookings("FUTURE", owner.getId(), "owner", exportedForOwner::add);
+
+        assertEquals(bookingService.getAllBookings("ALL", booker.getId(), "booker", 0, 10), exported);
+        assertEquals(exported, exportedForOwner);
+        assertEquals(3, exported.size());
+    }
+
+    @Test
+    @DisplayName("Кидаем exc, если cursor некорректный")
+    public void tryGetAllReserveWithBrokenCursor() {
+        assertThrows(NotValidException.class, () -> {
+            bookingService.getAllBookingsAfter("ALL", booker.getId(), "booker", "broken", 2);
+        });
+    }
 }
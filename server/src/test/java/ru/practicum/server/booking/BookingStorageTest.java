@@ -6,11 +6,14 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
-import org.springframework.data.domain.PageRequest;
+import ru.practicum.server.booking.dto.BookingCursor;
+import ru.practicum.server.booking.dto.BookingDto;
 import ru.practicum.server.booking.model.Booking;
+import ru.practicum.server.booking.model.State;
 import ru.practicum.server.booking.model.Status;
 import ru.practicum.server.item.model.Item;
 
+import ru.practicum.server.booking.storage.BookingFilter;
 import ru.practicum.server.booking.storage.BookingStorage;
 import ru.practicum.server.item.storage.ItemStorage;
 import ru.practicum.server.user.model.User;
@@ -18,10 +21,17 @@ import ru.practicum.server.user.model.User;
 import ru.practicum.server.user.storage.UserStorage;
 
 import java.time.LocalDateTime;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 
 @DataJpaTest
@@ -63,126 +73,196 @@ class BookingStorageTest {
         itemStorage.deleteAll();
     }
 
+    @Test
+    @DisplayName("Только последняя и следующая APPROVED брони вещи")
+    void shouldFindLastAndNextApprovedBookings() {
+        List<Long> result = bookingStorage.findLastAndNextByItemIn(
+                        List.of(booking1.getItem().getId()), LocalDateTime.now()).stream()
+                .map(Booking::getId)
+                .collect(Collectors.toList());
+
+        assertThat(result, containsInAnyOrder(booking1.getId(), booking4.getId()));
+    }
+
     @Test
     @DisplayName("ownerALL APPROVED")
     void shouldFindAllByOwnerIdOrderByStartDesc() {
-        List<Booking> result = bookingStorage.findAllByOwnerIdOrderByStartDesc(
-                user.getId(), PageRequest.of(0,2));
+        List<Long> result = search(true, State.ALL, 2);
 
         assertThat(result, notNullValue());
-        assertThat(result, hasItem(booking1));
-        assertThat(result, hasItem(booking4));
+        assertThat(result, hasItem(booking1.getId()));
+        assertThat(result, hasItem(booking4.getId()));
     }
 
     @Test
     @DisplayName("bookerALL APPROVED")
     void shouldFindAllByBookerIdOrderByStartDesc() {
-        List<Booking> result = bookingStorage.findAllByBookerIdOrderByStartDesc(
-                user.getId(), PageRequest.of(0,2));
+        List<Long> result = search(false, State.ALL, 2);
 
         assertThat(result, notNullValue());
-        assertThat(result, hasItem(booking1));
-        assertThat(result, hasItem(booking4));
+        assertThat(result, hasItem(booking1.getId()));
+        assertThat(result, hasItem(booking4.getId()));
     }
 
     @Test
     @DisplayName("ownerFUTURE")
     void shouldFindAllByOwnerIdAndStartAfterOrderByStartDesc() {
-        List<Booking> result = bookingStorage.findAllByOwnerIdAndStartAfterOrderByStartDesc(
-                user.getId(), timeNow, PageRequest.of(0,2));
+        List<Long> result = search(true, State.FUTURE, 2);
 
         assertThat(result, notNullValue());
-        assertThat(result, hasItem(booking4));
+        assertThat(result, hasItem(booking4.getId()));
     }
 
     @Test
     @DisplayName("bookerFUTURE")
     void shouldFindAllByBookerIdAndStartAfterOrderByStartDesc() {
-        List<Booking> result = bookingStorage.findAllByBookerIdAndStartAfterOrderByStartDesc(
-                user.getId(), timeNow, PageRequest.of(0,2));
+        List<Long> result = search(false, State.FUTURE, 2);
 
         assertThat(result, notNullValue());
-        assertThat(result, hasItem(booking4));
+        assertThat(result, hasItem(booking4.getId()));
     }
 
     @Test
     @DisplayName("ownerCURRENT")
     void shouldFindAllByOwnerIdAndStartBeforeAndEndAfterOrderByStartDesc() {
-        List<Booking> result = bookingStorage.findAllByOwnerIdAndStartBeforeAndEndAfterOrderByStartDesc(
-                user.getId(), timeNow, timeNow, PageRequest.of(0,2));
+        List<Long> result = search(true, State.CURRENT, 2);
 
         assertThat(result, notNullValue());
-        assertThat(result, hasItem(booking3));
+        assertThat(result, hasItem(booking3.getId()));
     }
 
     @Test
     @DisplayName("bookerCURRENT")
     void shouldFindAllByBookerIdAndStartBeforeAndEndAfterOrderByStartDesc() {
-        List<Booking> result = bookingStorage.findAllByBookerIdAndStartBeforeAndEndAfterOrderByStartDesc(
-                user.getId(), timeNow, timeNow, PageRequest.of(0,2));
+        List<Long> result = search(false, State.CURRENT, 2);
 
         assertThat(result, notNullValue());
-        assertThat(result, hasItem(booking3));
+        assertThat(result, hasItem(booking3.getId()));
     }
 
     @Test
     @DisplayName("ownerPAST")
     void shouldFindAllByItem_Owner_IdAndEndIsBeforeOrderByStartDesc() {
-        List<Booking> result = bookingStorage.findAllByOwnerIdAndEndBeforeOrderByStartDesc(
-                user.getId(), timeNow, PageRequest.of(0,2));
+        List<Long> result = search(true, State.PAST, 2);
 
         assertThat(result, notNullValue());
-        assertThat(result, hasItem(booking2));
+        assertThat(result, hasItem(booking2.getId()));
     }
 
     @Test
     @DisplayName("bookerPAST")
     void shouldFindAllByBookerIdAndEndBeforeOrderByStartDesc() {
-        List<Booking> result = bookingStorage.findAllByBookerIdAndEndBeforeOrderByStartDesc(
-                user.getId(), timeNow, PageRequest.of(0,2));
+        List<Long> result = search(false, State.PAST, 2);
 
         assertThat(result, notNullValue());
-        assertThat(result, hasItem(booking2));
+        assertThat(result, hasItem(booking2.getId()));
     }
 
     @Test
     @DisplayName("ownerWAITING")
     void shouldFindAllByOwnerIdAndStatusOrderByStartDescWAITING() {
-        List<Booking> result = bookingStorage.findAllByOwnerIdAndStatusOrderByStartDesc(
-                user.getId(), Status.WAITING, PageRequest.of(0,2));
+        List<Long> result = search(true, State.WAITING, 2);
 
         assertThat(result, notNullValue());
-        assertThat(result, hasItem(booking2));
+        assertThat(result, hasItem(booking2.getId()));
     }
 
     @Test
     @DisplayName("bookerWAITING")
     void shouldFindAllByBookerIdAndStatusOrderByStartDescWAITING() {
-        List<Booking> result = bookingStorage.findAllByBookerIdAndStatusOrderByStartDesc(
-                user.getId(), Status.WAITING, PageRequest.of(0,2));
+        List<Long> result = search(false, State.WAITING, 2);
 
         assertThat(result, notNullValue());
-        assertThat(result, hasItem(booking2));
+        assertThat(result, hasItem(booking2.getId()));
     }
 
     @Test
     @DisplayName("ownerREJECTED")
     void shouldFindAllByOwnerIdAndStatusOrderByStartDescREJECTED() {
-        List<Booking> result = bookingStorage.findAllByOwnerIdAndStatusOrderByStartDesc(
-                user.getId(), Status.REJECTED, PageRequest.of(0,2));
+        List<Long> result = search(true, State.REJECTED, 2);
 
         assertThat(result, notNullValue());
-        assertThat(result, hasItem(booking3));
+        assertThat(result, hasItem(booking3.getId()));
     }
 
     @Test
     @DisplayName("bookerREJECTED")
     void shouldFindAllByBookerIdAndStatusOrderByStartDescREJECTED() {
-        List<Booking> result = bookingStorage.findAllByBookerIdAndStatusOrderByStartDesc(
-                user.getId(), Status.REJECTED, PageRequest.of(0,2));
+        List<Long> result = search(false, State.REJECTED, 2);
 
         assertThat(result, notNullValue());
-        assertThat(result, hasItem(booking3));
+        assertThat(result, hasItem(booking3.getId()));
+    }
+
+    @Test
+    @DisplayName("ownerCURRENT+WAITING одним запросом")
+    void shouldFindByCombinedStates() {
+        List<Long> result = ids(bookingStorage.search(filter(true, EnumSet.of(State.CURRENT, State.WAITING))
+                .size(10)
+                .build()));
+
+        assertThat(result, hasItems(booking3.getId(), booking2.getId()));
+        assertThat(result, not(hasItem(booking4.getId())));
+    }
+
+    @Test
+    @DisplayName("ownerALL вторая страница по offset")
+    void shouldFindPageByOffset() {
+        List<Long> result = ids(bookingStorage.search(filter(true, EnumSet.of(State.ALL))
+                .offset(2)
+                .size(2)
+                .build()));
+
+        assertThat(result, contains(booking3.getId(), booking2.getId()));
+    }
+
+    @Test
+    @DisplayName("ownerALL keyset первая страница")
+    void shouldFindFirstPageWithoutCursor() {
+        List<Long> result = search(true, State.ALL, 1);
+
+        assertThat(result, contains(booking4.getId()));
+    }
+
+    @Test
+    @DisplayName("bookerALL keyset страница после cursor")
+    void shouldFindPageAfterCursor() {
+        List<Long> result = ids(bookingStorage.search(filter(false, EnumSet.of(State.ALL))
+                .cursor(new BookingCursor(booking4.getStart().withNano(0), booking4.getId()))
+                .size(2)
+                .build()));
+
+        assertThat(result, contains(booking1.getId(), booking3.getId()));
+    }
+
+    @Test
+    @DisplayName("ownerWAITING keyset")
+    void shouldFindPageAfterCursorWithState() {
+        List<Long> result = ids(bookingStorage.search(filter(true, EnumSet.of(State.WAITING))
+                .cursor(new BookingCursor(booking1.getStart(), booking1.getId()))
+                .size(10)
+                .build()));
+
+        assertThat(result, contains(booking2.getId()));
+    }
+
+    private List<Long> search(boolean owner, State state, int size) {
+        return ids(bookingStorage.search(filter(owner, EnumSet.of(state))
+                .size(size)
+                .build()));
     }
 
-}
\ No newline at end of file
+    private BookingFilter.BookingFilterBuilder filter(boolean owner, Set<State> states) {
+        return BookingFilter.builder()
+                .userId(user.getId())
+                .owner(owner)
+                .states(states)
+                .time(timeNow);
+    }
+
+    private List<Long> ids(List<BookingDto> bookings) {
+        return bookings.stream()
+                .map(BookingDto::getId)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,103 @@
+package ru.practicum.server.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.server.booking.dto.BookingDto;
+import ru.practicum.server.booking.dto.BookingDtoInput;
+import ru.practicum.server.booking.pointer.ItemBookingPointer;
+import ru.practicum.server.booking.pointer.ItemBookingPointerStorage;
+import ru.practicum.server.booking.pointer.ItemBookingPointers;
+import ru.practicum.server.booking.service.BookingService;
+import ru.practicum.server.item.dto.ItemResponseDto;
+import ru.practicum.server.item.model.Item;
+import ru.practicum.server.item.service.ItemService;
+import ru.practicum.server.item.storage.ItemStorage;
+import ru.practicum.server.user.model.User;
+import ru.practicum.server.user.storage.UserStorage;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class ItemBookingPointersTest {
+    private final BookingService bookingService;
+    private final ItemService itemService;
+    private final ItemBookingPointers itemBookingPointers;
+    private final ItemBookingPointerStorage pointerStorage;
+    private final ItemStorage itemStorage;
+    private final UserStorage userStorage;
+    private User owner;
+    private User booker;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        owner = userStorage.save(new User(null, "owner", UUID.randomUUID() + "@owner.com"));
+        booker = userStorage.save(new User(null, "booker", UUID.randomUUID() + "@booker.com"));
+        item = itemStorage.save(new Item(null, "Палатка", "Палатка на четверых", owner, true, null));
+    }
+
+    @Test
+    @DisplayName("Апрув брони записывает next бронь вещи, реджект ее убирает")
+    void shouldUpdatePointerOnApproveAndReject() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        BookingDto booking = bookingService.addBooking(booker.getId(),
+                new BookingDtoInput(null, item.getId(), start, start.plusDays(1), null));
+        bookingService.setApprovedByOwner(owner.getId(), booking.getId(), true);
+
+        ItemBookingPointer pointer = pointerStorage.findById(item.getId()).orElseThrow();
+        assertEquals(booking.getId(), pointer.getNext().getBookingId());
+        assertNull(pointer.getLast());
+        ItemResponseDto dto = itemService.getItemById(item.getId(), owner.getId());
+        assertEquals(booking.getId(), dto.getNextBooking().getId());
+        assertEquals(booker.getId(), dto.getNextBooking().getBookerId());
+        assertNull(itemService.getItemById(item.getId(), booker.getId()).getNextBooking());
+
+        bookingService.setApprovedByOwner(owner.getId(), booking.getId(), false);
+
+        assertNull(pointerStorage.findById(item.getId()).orElseThrow().getNext());
+        assertNull(itemService.getItemById(item.getId(), owner.getId()).getNextBooking());
+    }
+
+    @Test
+    @DisplayName("Начавшаяся next бронь становится last при чтении и после фонового обновления")
+    void shouldMoveStartedBookingToLast() throws InterruptedException {
+        LocalDateTime start = LocalDateTime.now().plusSeconds(1);
+        BookingDto booking = bookingService.addBooking(booker.getId(),
+                new BookingDtoInput(null, item.getId(), start, start.plusDays(1), null));
+        bookingService.setApprovedByOwner(owner.getId(), booking.getId(), true);
+        Thread.sleep(1500);
+
+        ItemResponseDto dto = itemService.getItemById(item.getId(), owner.getId());
+        assertEquals(booking.getId(), dto.getLastBooking().getId());
+        assertNull(dto.getNextBooking());
+        assertTrue(pointerStorage.findById(item.getId()).orElseThrow().isStale(LocalDateTime.now()));
+
+        itemBookingPointers.refreshStale();
+
+        ItemBookingPointer pointer = pointerStorage.findById(item.getId()).orElseThrow();
+        assertEquals(booking.getId(), pointer.getLast().getBookingId());
+        assertNull(pointer.getNext());
+    }
+
+    @Test
+    @DisplayName("Фоновое обновление создает записи для вещей без них")
+    void shouldBackfillMissingPointers() {
+        assertTrue(pointerStorage.findById(item.getId()).isEmpty());
+
+        itemBookingPointers.refreshStale();
+
+        ItemBookingPointer pointer = pointerStorage.findById(item.getId()).orElseThrow();
+        assertNull(pointer.getLast());
+        assertNull(pointer.getNext());
+    }
+}
@@ -0,0 +1,130 @@
+package ru.practicum.server.item;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.server.item.cache.ItemCache;
+import ru.practicum.server.item.dto.ItemDto;
+import ru.practicum.server.item.model.Item;
+import ru.practicum.server.item.service.ItemService;
+import ru.practicum.server.item.storage.ItemStorage;
+import ru.practicum.server.user.dto.UserDto;
+import ru.practicum.server.user.model.User;
+import ru.practicum.server.user.service.UserService;
+import ru.practicum.server.user.storage.UserStorage;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class ItemCacheTest {
+    private final ItemService itemService;
+    private final UserService userService;
+    private final ItemStorage itemStorage;
+    private final UserStorage userStorage;
+    private final CacheManager cacheManager;
+    private final EntityManagerFactory entityManagerFactory;
+    @SpyBean
+    private ItemCache itemCache;
+    private User owner;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        owner = userStorage.save(new User(null, "owner", UUID.randomUUID() + "@owner.com"));
+        item = itemStorage.save(new Item(null, "Дрель", "Простая дрель", owner, true, null));
+    }
+
+    @Test
+    @DisplayName("Повторное чтение вещи не ходит в БД")
+    void shouldReadItemFromCache() {
+        itemService.getById(item.getId());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Item cached = itemService.getById(item.getId());
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(item.getName(), cached.getName());
+        assertEquals(owner.getId(), cached.getOwner().getId());
+    }
+
+    @Test
+    @DisplayName("Вещь из кэша несет версии вещи и владельца")
+    void shouldKeepVersionsInCachedCopy() {
+        userService.updateUser(owner.getId(), new UserDto(null, "new owner", null));
+        long ownerVersion = userStorage.findById(owner.getId()).orElseThrow().getVersion();
+        itemService.getById(item.getId());
+
+        Item cached = itemService.getById(item.getId());
+
+        assertEquals(1, ownerVersion);
+        assertEquals(ownerVersion, cached.getOwner().getVersion());
+        assertEquals(itemStorage.findById(item.getId()).orElseThrow().getVersion(), cached.getVersion());
+    }
+
+    @Test
+    @DisplayName("Изменение возвращенной вещи не попадает в кэш")
+    void shouldReturnCopies() {
+        itemService.getById(item.getId()).setName("Испорчено");
+
+        assertEquals("Дрель", itemService.getById(item.getId()).getName());
+    }
+
+    @Test
+    @DisplayName("Обновление и удаление вещи сбрасывают кэш")
+    void shouldEvictOnUpdateAndDelete() {
+        itemService.getById(item.getId());
+
+        itemService.updateItem(owner.getId(), item.getId(), new ItemDto(null, "Перфоратор", null, null, null, null));
+
+        assertEquals("Перфоратор", itemService.getById(item.getId()).getName());
+
+        itemService.deleteItem(item.getId());
+
+        assertNull(cacheManager.getCache(ItemCache.NAME).get(item.getId()));
+        assertThrows(RuntimeException.class, () -> itemService.getById(item.getId()));
+    }
+
+    @Test
+    @DisplayName("Изменение владельца сбрасывает его вещи")
+    void shouldEvictOwnerItemsOnUserUpdate() {
+        itemService.getById(item.getId());
+
+        userService.updateUser(owner.getId(), new UserDto(null, "new owner", null));
+
+        assertNull(cacheManager.getCache(ItemCache.NAME).get(item.getId()));
+        assertEquals("new owner", itemService.getById(item.getId()).getOwner().getName());
+    }
+
+    @Test
+    @DisplayName("Вещь, прочитанная параллельно до коммита удаления владельца, не остается в кэше")
+    void shouldEvictOwnerItemsAfterUserDeleteCommit() {
+        doAnswer(invocation -> {
+            invocation.callRealMethod();
+            // параллельный запрос читает вещь до коммита удаления и снова кладет ее в кэш
+            CompletableFuture.runAsync(() -> itemService.getById(item.getId())).join();
+            return null;
+        }).when(itemCache).evictByOwner(anyLong());
+
+        userService.deleteUser(owner.getId());
+
+        assertNull(cacheManager.getCache(ItemCache.NAME).get(item.getId()));
+        assertThrows(RuntimeException.class, () -> itemService.getById(item.getId()));
+    }
+}
@@ -11,22 +11,30 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.practicum.server.booking.availability.TimeSlot;
 import ru.practicum.server.item.dto.CommentDto;
+import ru.practicum.server.item.dto.ItemAvailabilityDto;
 import ru.practicum.server.item.model.Item;
 import ru.practicum.server.item.service.ItemService;
 import ru.practicum.server.item.dto.ItemDto;
 import ru.practicum.server.item.dto.ItemResponseDto;
 import ru.practicum.server.user.model.User;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = ItemController.class)
@@ -236,6 +244,64 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$[0].available").value("true"));
     }
 
+    @Test
+    @DisplayName("Передаем from и size в поиск")
+    public void shouldPassPageToSearch() throws Exception {
+        when(itemService.searchItemsByDescription("дрель", 20, 5))
+                .thenReturn(List.of(itemDto));
+
+        mockMvc.perform(get("/items/search?text=дрель&from=20&size=5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    @DisplayName("Без size поиск отдает все совпадения начиная с from")
+    public void shouldSearchFromOffsetWithoutSize() throws Exception {
+        when(itemService.searchItemsByDescription("дрель", 20, Integer.MAX_VALUE))
+                .thenReturn(List.of(itemDto));
+
+        mockMvc.perform(get("/items/search?text=дрель&from=20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    @DisplayName("Получаем календарь занятости вещи за окно from-to")
+    public void shouldGetAvailability() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 10, 0);
+        LocalDateTime to = from.plusDays(3);
+        TimeSlot busy = new TimeSlot(from.plusDays(1), from.plusDays(2));
+        when(itemService.getAvailability(1L, from, to))
+                .thenReturn(new ItemAvailabilityDto(1L, from, to, List.of(busy),
+                        List.of(new TimeSlot(from, busy.getStart()), new TimeSlot(busy.getEnd(), to))));
+
+        mockMvc.perform(get("/items/1/availability?from={from}&to={to}", "2030-01-01T10:00:00", "2030-01-04T10:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.busy", hasSize(1)))
+                .andExpect(jsonPath("$.free", hasSize(2)))
+                .andExpect(jsonPath("$.free[1].start").value("2030-01-03T10:00:00"));
+    }
+
+    @Test
+    @DisplayName("Выгружаем результаты поиска построчно в NDJSON")
+    public void shouldStreamSearchAsNdjson() throws Exception {
+        when(itemService.streamItemsByDescription("дрель"))
+                .thenReturn(Stream.of(itemDto, itemDto));
+
+        MvcResult result = mockMvc.perform(get("/items/search/stream?text=дрель"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("Дрель", objectMapper.readValue(lines[0], ItemDto.class).getName());
+    }
+
     @Test
     public void shouldAddCommentByItemId() throws Exception {
         when(itemService.addComment(anyLong(), anyLong(), any()))
@@ -0,0 +1,171 @@
+package ru.practicum.server.item;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.server.item.dto.ItemDto;
+import ru.practicum.server.item.model.Item;
+import ru.practicum.server.item.search.ItemSearchIndex;
+import ru.practicum.server.item.service.ItemService;
+import ru.practicum.server.item.storage.ItemStorage;
+import ru.practicum.server.user.model.User;
+import ru.practicum.server.user.service.UserService;
+import ru.practicum.server.user.storage.UserStorage;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ItemSearchIndexTest {
+    private final ItemService itemService;
+    private final UserService userService;
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemStorage itemStorage;
+    private final UserStorage userStorage;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        owner = userStorage.save(new User(null, "owner", UUID.randomUUID() + "@owner.com"));
+    }
+
+    @Test
+    @DisplayName("Поиск по подстроке без учета регистра и без запросов в БД")
+    void shouldFindBySubstringWithoutDatabase() {
+        Item drill = addItem("Дрель", "Простая дрель", true);
+        Item screwdriver = addItem("Шуруповерт", "Аккумуляторная дрель-шуруповерт", true);
+        addItem("Пила", "Ножовка", true);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        assertThat(ids("дРелЬ"), contains(drill.getId(), screwdriver.getId()));
+        assertThat(ids("ак"), contains(screwdriver.getId()));
+        assertThat(ids("ь"), contains(drill.getId(), screwdriver.getId()));
+        assertThat(ids("молоток"), empty());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Совпадение в названии выше описания, раньше в строке выше позже")
+    void shouldRankByFieldAndPosition() {
+        Item inDescription = addItem("Шуруповерт", "дрель-шуруповерт", true);
+        Item late = addItem("Ударная дрель", "Мощная", true);
+        Item early = addItem("Дрель", "Простая", true);
+
+        assertThat(ids("дрель"), contains(early.getId(), late.getId(), inDescription.getId()));
+        assertThat(itemService.searchItemsByDescription("дрель", 1, 1).stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList()), contains(late.getId()));
+        assertThat(itemService.searchItemsByDescription("дрель", 2, 10).stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList()), contains(inDescription.getId()));
+        assertThat(itemService.streamItemsByDescription("дрель")
+                .map(ItemDto::getId)
+                .collect(Collectors.toList()), contains(early.getId(), late.getId(), inDescription.getId()));
+    }
+
+    @Test
+    @DisplayName("Недоступная вещь не находится ни по названию, ни по описанию")
+    void shouldSkipUnavailableItems() {
+        addItem("Дрель", "Простая", false);
+        addItem("Пила", "Простая дрель", false);
+
+        assertThat(ids("дрель"), empty());
+    }
+
+    @Test
+    @DisplayName("Индекс следует за обновлением, удалением вещи и удалением владельца")
+    void shouldFollowUpdatesAndDeletes() {
+        Item item = addItem("Дрель", "Простая дрель", true);
+        Item saw = addItem("Пила", "Ножовка", true);
+
+        itemService.updateItem(owner.getId(), item.getId(), new ItemDto(null, "Перфоратор", "Мощный", null, null, null));
+        assertThat(ids("дрель"), empty());
+        assertThat(ids("перфоратор"), contains(item.getId()));
+
+        itemService.deleteItem(item.getId());
+        assertThat(ids("перфоратор"), empty());
+
+        userService.deleteUser(owner.getId());
+        assertThat(ids("пила"), empty());
+        assertEquals(0, itemStorage.findAllById(List.of(saw.getId())).size());
+    }
+
+    @Test
+    @DisplayName("Откат транзакции возвращает индекс к прежнему состоянию")
+    void shouldRestoreOnRollback() {
+        Item item = addItem("Дрель", "Простая дрель", true);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Item changed = itemStorage.findById(item.getId()).orElseThrow();
+            changed.setName("Перфоратор");
+            itemStorage.saveAndFlush(changed);
+            itemStorage.saveAndFlush(new Item(null, "Пила", "Ножовка", owner, true, null));
+            status.setRollbackOnly();
+        });
+
+        assertThat(ids("дрель"), contains(item.getId()));
+        assertThat(ids("перфоратор"), empty());
+        assertThat(ids("пила"), empty());
+    }
+
+    @Test
+    @DisplayName("Изменения вещи не видны поиску до коммита транзакции")
+    void shouldApplyChangesAfterCommit() {
+        Item item = addItem("Дрель", "Простая дрель", true);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Item changed = itemStorage.findById(item.getId()).orElseThrow();
+            changed.setName("Перфоратор");
+            itemStorage.saveAndFlush(changed);
+            itemStorage.saveAndFlush(new Item(null, "Пила", "Ножовка", owner, true, null));
+
+            assertThat(CompletableFuture.supplyAsync(() -> ids("перфоратор")).join(), empty());
+            assertThat(CompletableFuture.supplyAsync(() -> ids("пила")).join(), empty());
+            assertThat(CompletableFuture.supplyAsync(() -> ids("дрель")).join(), contains(item.getId()));
+        });
+
+        assertThat(ids("перфоратор"), contains(item.getId()));
+        assertThat(ids("пила"), hasSize(1));
+    }
+
+    @Test
+    @DisplayName("Индекс перестраивается из БД")
+    void shouldRebuildFromDatabase() {
+        Item item = addItem("Дрель", "Простая дрель", true);
+
+        itemSearchIndex.rebuild();
+
+        assertThat(ids("дрель"), contains(item.getId()));
+    }
+
+    private Item addItem(String name, String description, boolean available) {
+        return itemStorage.save(new Item(null, name, description, owner, available, null));
+    }
+
+    private List<Long> ids(String text) {
+        return itemService.searchItemsByDescription(text).stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList());
+    }
+}
@@ -7,12 +7,15 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.server.booking.dto.BookingDtoInput;
 import ru.practicum.server.booking.model.Booking;
 import ru.practicum.server.booking.dto.BookingMapper;
 import ru.practicum.server.booking.model.Status;
 import ru.practicum.server.booking.dto.BookingDtoSpecial;
+import ru.practicum.server.booking.pointer.ItemBookingPointer;
+import ru.practicum.server.booking.pointer.ItemBookingPointers;
 import ru.practicum.server.booking.storage.BookingStorage;
 import ru.practicum.server.item.dto.*;
 import ru.practicum.server.item.model.Comment;
@@ -25,6 +28,8 @@ import ru.practicum.server.user.storage.UserStorage;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -201,6 +206,7 @@ class ItemServiceTest {
 
     @Test
     @DisplayName("Получаем список по тегу")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // поисковый индекс видит только закоммиченные вещи
     public void shouldSearchItemsByKeyWord() {
         User user = new User();
         user.setEmail("test@example.com");
@@ -344,11 +350,46 @@ class ItemServiceTest {
         expectedDto.setComments(comments);
         expectedDto.setRequestId(requestId);
 
-        ItemResponseDto actualDto = ItemMapper.toItemResponseDto(item, bookings, comments);
+        ItemBookingPointer pointer = ItemBookingPointers.resolve(List.of(itemId), bookings, LocalDateTime.now())
+                .get(itemId);
+        ItemResponseDto actualDto = ItemMapper.toItemResponseDto(item, pointer, comments);
 
         assertEquals(expectedDto.getId(), actualDto.getId());
         assertEquals(expectedDto.getName(), actualDto.getName());
         assertEquals(expectedDto.getDescription(), actualDto.getDescription());
+        assertEquals(expectedDto.getLastBooking().getId(), actualDto.getLastBooking().getId());
+        assertEquals(expectedDto.getNextBooking().getId(), actualDto.getNextBooking().getId());
+    }
+
+    @Test
+    @DisplayName("Last и next бронь считаются для каждой вещи списка")
+    public void shouldResolveLastAndNextPerItem() {
+        User owner = new User(1L, "owner", "owner@owner.com");
+        User booker = new User(2L, "booker", "booker@booker.com");
+        Item item1 = new Item(1L, "item1", "description1", owner, true, null);
+        Item item2 = new Item(2L, "item2", "description2", owner, true, null);
+        Item item3 = new Item(3L, "item3", "description3", owner, true, null);
+        LocalDateTime now = LocalDateTime.now();
+        List<Booking> bookings = List.of(
+                new Booking(1L, item1, now.minusDays(5), now.minusDays(4), booker, Status.APPROVED),
+                new Booking(2L, item1, now.minusDays(3), now.minusDays(2), booker, Status.APPROVED),
+                new Booking(3L, item1, now.plusDays(5), now.plusDays(6), booker, Status.APPROVED),
+                new Booking(4L, item1, now.plusDays(2), now.plusDays(3), booker, Status.APPROVED),
+                new Booking(5L, item2, now.minusDays(1), now.plusDays(1), booker, Status.APPROVED),
+                new Booking(6L, item2, now.plusDays(1), now.plusDays(2), booker, Status.REJECTED));
+
+        Map<Long, ItemBookingPointer> pointers = ItemBookingPointers.resolve(List.of(1L, 2L, 3L), bookings, now);
+        List<ItemResponseDto> result = Stream.of(item1, item2, item3)
+                .map(item -> ItemMapper.toItemResponseDto(item, pointers.get(item.getId()), new ArrayList<>()))
+                .collect(Collectors.toList());
+
+        assertEquals(3, result.size());
+        assertEquals(2L, result.get(0).getLastBooking().getId());
+        assertEquals(4L, result.get(0).getNextBooking().getId());
+        assertEquals(5L, result.get(1).getLastBooking().getId());
+        assertNull(result.get(1).getNextBooking());
+        assertNull(result.get(2).getLastBooking());
+        assertNull(result.get(2).getNextBooking());
     }
 
     @Test
@@ -62,15 +62,4 @@ class ItemStorageTest {
         assertThat(result, hasItem(item2));
     }
 
-    @Test
-    @DisplayName("findByNameContaining")
-    void findByNameContaining() {
-        List<Item> result = itemStorage.findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndAvailable("mir", "push", true);
-
-        assertThat(result, notNullValue());
-        assertEquals(2, result.size());
-        assertThat(result, hasItem(item2));
-        assertThat(result, hasItem(item1));
-    }
-
 }
\ No newline at end of file
@@ -0,0 +1,157 @@
+package ru.practicum.server.outbox;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.server.booking.dto.BookingDecisionDto;
+import ru.practicum.server.booking.dto.BookingDto;
+import ru.practicum.server.booking.dto.BookingDtoInput;
+import ru.practicum.server.booking.event.BookingEvent;
+import ru.practicum.server.booking.model.Status;
+import ru.practicum.server.booking.service.BookingService;
+import ru.practicum.server.exception.NotValidException;
+import ru.practicum.server.item.model.Item;
+import ru.practicum.server.item.storage.ItemStorage;
+import ru.practicum.server.user.model.User;
+import ru.practicum.server.user.storage.UserStorage;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class OutboxDispatcherTest {
+    private final BookingService bookingService;
+    private final OutboxDispatcher dispatcher;
+    private final OutboxStorage outboxStorage;
+    private final Outbox outbox;
+    private final RecordingSubscriber subscriber;
+    private final MeterRegistry meterRegistry;
+    private final ItemStorage itemStorage;
+    private final UserStorage userStorage;
+    private User owner;
+    private User booker;
+    private Item item;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        outboxStorage.deleteAll();
+        subscriber.events.clear();
+        subscriber.failures.set(0);
+        owner = userStorage.save(new User(null, "owner", UUID.randomUUID() + "@owner.com"));
+        booker = userStorage.save(new User(null, "booker", UUID.randomUUID() + "@booker.com"));
+        item = itemStorage.save(new Item(null, "Палатка", "Палатка на четверых", owner, true, null));
+        start = LocalDateTime.now().plusDays(1).withNano(0);
+    }
+
+    @Test
+    @DisplayName("События создания и апрува брони доставляются по порядку и удаляются из outbox")
+    void shouldDeliverLifecycleEventsInOrder() {
+        double dispatchedBefore = meterRegistry.get("shareit.outbox.dispatched").counter().count();
+        BookingDto booking = book(start, start.plusDays(1));
+        bookingService.setApprovedByOwner(owner.getId(), booking.getId(), true);
+
+        assertEquals(2, dispatcher.drain());
+
+        List<BookingEvent> events = subscriber.events.stream()
+                .map(e -> outbox.read(e, BookingEvent.class))
+                .collect(Collectors.toList());
+        assertEquals(List.of(BookingEvent.CREATED, BookingEvent.APPROVED), events.stream()
+                .map(BookingEvent::getType)
+                .collect(Collectors.toList()));
+        assertEquals(booking.getId(), events.get(1).getBookingId());
+        assertEquals(booker.getId(), events.get(1).getBookerId());
+        assertEquals(start, events.get(1).getStart());
+        assertEquals(Status.APPROVED, events.get(1).getStatus());
+        assertEquals(0, outboxStorage.count());
+        assertEquals(dispatchedBefore + 2, meterRegistry.get("shareit.outbox.dispatched").counter().count());
+        assertEquals(0, meterRegistry.get("shareit.outbox.lag").timeGauge().value());
+    }
+
+    @Test
+    @DisplayName("Откаченная транзакция не оставляет события, пакетные операции пишут событие на каждую бронь")
+    void shouldWriteEventsOnlyWithCommittedChanges() {
+        BookingDto first = book(start, start.plusDays(1));
+        BookingDto second = book(start.plusDays(2), start.plusDays(3));
+        assertThrows(NotValidException.class, () -> book(start, start.plusDays(1)));
+        bookingService.setDecisionsByOwner(owner.getId(), List.of(
+                new BookingDecisionDto(first.getId(), true),
+                new BookingDecisionDto(second.getId(), false)));
+
+        assertEquals(4, outboxStorage.count());
+        dispatcher.drain();
+
+        assertEquals(List.of(BookingEvent.CREATED, BookingEvent.CREATED, BookingEvent.APPROVED,
+                BookingEvent.REJECTED), subscriber.events.stream()
+                .sorted((a, b) -> Long.compare(a.getId(), b.getId()))
+                .map(OutboxEvent::getType)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("Событие, на котором упал подписчик, и следующие события той же брони доставляются повторно")
+    void shouldRedeliverAfterFailure() {
+        BookingDto booking = book(start, start.plusDays(1));
+        bookingService.setApprovedByOwner(owner.getId(), booking.getId(), false);
+        subscriber.failures.set(1);
+
+        assertEquals(0, dispatcher.drain());
+        List<OutboxEvent> pending = outboxStorage.findAll();
+        assertEquals(2, pending.size());
+        assertEquals(List.of(1, 0), pending.stream()
+                .sorted((a, b) -> Long.compare(a.getId(), b.getId()))
+                .map(OutboxEvent::getAttempts)
+                .collect(Collectors.toList()));
+
+        assertEquals(2, dispatcher.drain());
+        assertEquals(List.of(BookingEvent.CREATED, BookingEvent.REJECTED), subscriber.events.stream()
+                .map(OutboxEvent::getType)
+                .collect(Collectors.toList()));
+        assertEquals(0, outboxStorage.count());
+    }
+
+    private BookingDto book(LocalDateTime start, LocalDateTime end) {
+        return bookingService.addBooking(booker.getId(), new BookingDtoInput(null, item.getId(), start, end, null));
+    }
+
+    @TestConfiguration
+    static class SubscriberConfig {
+        @Bean
+        RecordingSubscriber recordingSubscriber() {
+            return new RecordingSubscriber();
+        }
+    }
+
+    static class RecordingSubscriber implements OutboxSubscriber {
+        private final List<OutboxEvent> events = new CopyOnWriteArrayList<>();
+        private final AtomicInteger failures = new AtomicInteger();
+
+        @Override
+        public boolean supports(String eventType) {
+            return eventType.startsWith("BOOKING_");
+        }
+
+        @Override
+        public void handle(OutboxEvent event) {
+            if (failures.getAndDecrement() > 0) {
+                throw new IllegalStateException("Подписчик недоступен");
+            }
+            events.add(event);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package ru.practicum.server.request;
 
 import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -21,6 +23,7 @@ import ru.practicum.server.request.storage.ItemRequestStorage;
 import ru.practicum.server.user.model.User;
 import ru.practicum.server.user.storage.UserStorage;
 
+import javax.persistence.EntityManagerFactory;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -36,6 +39,7 @@ class ItemRequestServiceTest {
     private final ItemStorage itemStorage;
     private final UserStorage userStorage;
     private final ItemRequestStorage requestStorage;
+    private final EntityManagerFactory entityManagerFactory;
     User user;
     Item item;
 
@@ -177,4 +181,25 @@ class ItemRequestServiceTest {
         assertEquals(3, itemRequestResponseDto.getItems().size());
         assertEquals(itemRequest.getId(), itemRequestResponseDto.getId());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Вещи для страницы риквестов грузятся одним запросом")
+    public void shouldLoadRequestItemsInSingleQuery() {
+        User requester = userStorage.save(new User(null, "requester", "requester@test.com"));
+        for (int i = 0; i < 5; i++) {
+            ItemRequest itemRequest = requestStorage.save(
+                    new ItemRequest(null, "request " + i, LocalDateTime.now(), requester.getId()));
+            User owner = userStorage.save(new User(null, "owner" + i, "owner" + i + "@test.com"));
+            itemStorage.save(new Item(null, "item " + i, "description " + i, owner, true, itemRequest.getId()));
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<ItemRequestDto> requests = itemRequestService.getAllRequestsByOtherUsers(user.getId(), 0, 10);
+
+        assertEquals(5, requests.size());
+        requests.forEach(request -> assertEquals(1, request.getItems().size()));
+        // пользователь, страница риквестов, вещи всех риквестов вместе с владельцами
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,86 @@
+package ru.practicum.server.user;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import ru.practicum.server.exception.NotFoundException;
+import ru.practicum.server.user.cache.KnownUsers;
+import ru.practicum.server.user.model.User;
+import ru.practicum.server.user.service.UserService;
+import ru.practicum.server.user.storage.UserStorage;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class KnownUsersTest {
+    private final UserService userService;
+    private final UserStorage userStorage;
+    private final CacheManager cacheManager;
+    private final EntityManagerFactory entityManagerFactory;
+    private User user;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        user = userStorage.save(new User(null, "user", UUID.randomUUID() + "@user.com"));
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @DisplayName("Повторная проверка существования user не ходит в БД")
+    void shouldCacheExistingUser() {
+        userService.checkExists(user.getId());
+        statistics.clear();
+
+        userService.checkExists(user.getId());
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("В рамках запроса проверка не ходит и в общий кэш")
+    void shouldMemoizeWithinRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        userService.checkExists(user.getId());
+        cacheManager.getCache(KnownUsers.NAME).clear();
+        statistics.clear();
+
+        userService.checkExists(user.getId());
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertNull(cacheManager.getCache(KnownUsers.NAME).get(user.getId()));
+    }
+
+    @Test
+    @DisplayName("Несуществующий user не кэшируется, удаленный сбрасывается")
+    void shouldNotCacheMissingAndEvictDeleted() {
+        assertThrows(NotFoundException.class, () -> userService.checkExists(-1L));
+        assertNull(cacheManager.getCache(KnownUsers.NAME).get(-1L));
+
+        userService.checkExists(user.getId());
+        userService.deleteUser(user.getId());
+
+        assertThrows(NotFoundException.class, () -> userService.checkExists(user.getId()));
+    }
+}
@@ -6,6 +6,8 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
 import ru.practicum.server.exception.NotFoundException;
+import ru.practicum.server.item.cache.ItemCache;
+import ru.practicum.server.user.cache.KnownUsers;
 
 import ru.practicum.server.user.dto.UserMapper;
 import ru.practicum.server.user.dto.UserDto;
@@ -35,10 +37,14 @@ class UserServiceTest {
     private UserService userService;
     @Mock
     private UserStorage userRepository;
+    @Mock
+    private ItemCache itemCache;
+    @Mock
+    private KnownUsers knownUsers;
 
     @BeforeEach
     void setUp() {
-        userService = new UserServiceImpl(userRepository);
+        userService = new UserServiceImpl(userRepository, itemCache, knownUsers);
     }
 
     @Test